@@ -0,0 +1,63 @@
+package cis22c.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ *
+ * Building a graph in memory: one addEdge call per road, the bulk addEdges the
+ * loaders use, and freezing the result into the snapshot every solver starts
+ * from.
+ *
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BuildBenchmark
+{
+	@Param({ "SPARSE", "COMPLETE", "GRID", "NON_HAMILTONIAN" })
+	public GraphFamilies.Family family;
+
+	@Param({ "100", "1000" })
+	public int size;
+
+	@Param("42")
+	public long seed;
+
+	private GraphFamilies.Edges edges;
+	private Object graph;
+
+	@Setup(Level.Trial)
+	public void generate()
+	{
+		edges = GraphFamilies.generate(family, size, seed);
+		graph = edges.build();
+	}
+
+	@Benchmark
+	public Object addEdge()
+	{
+		Object g = Core.newGraph();
+		for(int i = 0; i < edges.count; i++)
+			Core.addEdge(g, edges.names[edges.src[i]], edges.names[edges.dst[i]], edges.cost[i]);
+		return g;
+	}
+
+	@Benchmark
+	public Object addEdges()
+	{
+		return edges.build();
+	}
+
+	// Graph caches its snapshot until the next edit, so each call edits first.
+	@Benchmark
+	public Object freeze()
+	{
+		Core.addEdge(graph, edges.names[0], edges.names[1], 1);
+		return Core.freeze(graph);
+	}
+}
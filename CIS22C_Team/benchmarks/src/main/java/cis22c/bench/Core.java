@@ -0,0 +1,273 @@
+package cis22c.bench;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ *
+ * Calls into the application, whose classes live in the default package.
+ *
+ * JMH only accepts benchmarks in a named package, and Java code in a named
+ * package can't name default-package classes. So the classes are looked up by
+ * name once, and their methods are called through method handles held in static
+ * final fields, which the JIT compiles like direct calls. Graphs and solvers are
+ * passed around as Object.
+ *
+ */
+
+public final class Core
+{
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+	static final Class<?> GRAPH = type("Graph");
+	private static final Class<?> VISITOR = type("Visitor");
+
+	private static final MethodHandle NEW_GRAPH = constructor(GRAPH);
+	private static final MethodHandle ADD_EDGE = method(GRAPH, "addEdge", void.class, Object.class, Object.class, double.class);
+	private static final MethodHandle ADD_EDGES = method(GRAPH, "addEdges", void.class, Object[].class, int[].class, int[].class, double[].class, int.class);
+	private static final MethodHandle FREEZE = method(GRAPH, "freeze", type("CsrGraph"));
+	private static final MethodHandle BFS = method(GRAPH, "breadthFirstTraversal", void.class, Object.class, VISITOR);
+	private static final MethodHandle DFS = method(GRAPH, "depthFirstTraversal", void.class, Object.class, VISITOR);
+	private static final MethodHandle LOAD_TEXT = staticMethod(type("GraphLoader"), "load", void.class, File.class, GRAPH);
+	private static final MethodHandle LOAD_BINARY = staticMethod(type("BinaryGraphFile"), "read", void.class, File.class, GRAPH);
+	private static final MethodHandle SAVE_BINARY = staticMethod(type("BinaryGraphFile"), "write", void.class, GRAPH, File.class);
+
+	// CircuitSolver subclasses, called through their shared solveHamil(Graph, List)
+	public enum Solver
+	{
+		HAMILTONIAN("Hamiltonian"),
+		PRUNED_SEARCH("PrunedSearch"),
+		HELD_KARP("HeldKarp"),
+		BRANCH_AND_BOUND("BranchAndBound"),
+		TOUR_HEURISTICS("TourHeuristics");
+
+		private final MethodHandle create;
+		private final MethodHandle solve;
+
+		Solver(String className)
+		{
+			Class<?> type = type(className);
+			create = constructor(type);
+			solve = method(type, "solveHamil", boolean.class, GRAPH, List.class);
+		}
+
+		Object create()
+		{
+			try
+			{
+				return create.invoke();
+			}
+			catch(Throwable e)
+			{
+				throw rethrow(e);
+			}
+		}
+
+		boolean solve(Object solver, Object graph, List<?> cycle)
+		{
+			try
+			{
+				return (boolean)solve.invoke(solver, graph, cycle);
+			}
+			catch(Throwable e)
+			{
+				throw rethrow(e);
+			}
+		}
+	}
+
+	private Core()
+	{
+	}
+
+	static Object newGraph()
+	{
+		try
+		{
+			return NEW_GRAPH.invoke();
+		}
+		catch(Throwable e)
+		{
+			throw rethrow(e);
+		}
+	}
+
+	static void addEdge(Object graph, String source, String dest, double cost)
+	{
+		try
+		{
+			ADD_EDGE.invoke(graph, source, dest, cost);
+		}
+		catch(Throwable e)
+		{
+			throw rethrow(e);
+		}
+	}
+
+	static void addEdges(Object graph, String[] names, int[] src, int[] dst, double[] cost, int count)
+	{
+		try
+		{
+			ADD_EDGES.invoke(graph, (Object[])names, src, dst, cost, count);
+		}
+		catch(Throwable e)
+		{
+			throw rethrow(e);
+		}
+	}
+
+	static Object freeze(Object graph)
+	{
+		try
+		{
+			return FREEZE.invoke(graph);
+		}
+		catch(Throwable e)
+		{
+			throw rethrow(e);
+		}
+	}
+
+	static void breadthFirstTraversal(Object graph, String start, Object visitor)
+	{
+		try
+		{
+			BFS.invoke(graph, start, visitor);
+		}
+		catch(Throwable e)
+		{
+			throw rethrow(e);
+		}
+	}
+
+	static void depthFirstTraversal(Object graph, String start, Object visitor)
+	{
+		try
+		{
+			DFS.invoke(graph, start, visitor);
+		}
+		catch(Throwable e)
+		{
+			throw rethrow(e);
+		}
+	}
+
+	static void loadText(File file, Object graph)
+	{
+		try
+		{
+			LOAD_TEXT.invoke(file, graph);
+		}
+		catch(Throwable e)
+		{
+			throw rethrow(e);
+		}
+	}
+
+	static void loadBinary(File file, Object graph)
+	{
+		try
+		{
+			LOAD_BINARY.invoke(file, graph);
+		}
+		catch(Throwable e)
+		{
+			throw rethrow(e);
+		}
+	}
+
+	static void saveBinary(Object graph, File file)
+	{
+		try
+		{
+			SAVE_BINARY.invoke(graph, file);
+		}
+		catch(Throwable e)
+		{
+			throw rethrow(e);
+		}
+	}
+
+	// A Visitor passing every visited label to action. The proxy costs a little
+	// per visit, the same for every graph family and size.
+	static Object visitor(Consumer<Object> action)
+	{
+		return Proxy.newProxyInstance(VISITOR.getClassLoader(), new Class<?>[] { VISITOR }, (proxy, method, args) ->
+		{
+			switch(method.getName())
+			{
+			case "visit":
+				action.accept(args[0]);
+				return null;
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "equals":
+				return proxy == args[0];
+			default:
+				return "Visitor";
+			}
+		});
+	}
+
+	private static Class<?> type(String name)
+	{
+		try
+		{
+			return Class.forName(name);
+		}
+		catch(ClassNotFoundException e)
+		{
+			throw new IllegalStateException("Application class " + name + " is not on the class path.", e);
+		}
+	}
+
+	private static MethodHandle constructor(Class<?> type)
+	{
+		try
+		{
+			return LOOKUP.findConstructor(type, MethodType.methodType(void.class));
+		}
+		catch(ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("No public constructor " + type.getName() + "()", e);
+		}
+	}
+
+	private static MethodHandle method(Class<?> type, String name, Class<?> result, Class<?>... params)
+	{
+		try
+		{
+			return LOOKUP.findVirtual(type, name, MethodType.methodType(result, params));
+		}
+		catch(ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("No public method " + type.getName() + "." + name, e);
+		}
+	}
+
+	private static MethodHandle staticMethod(Class<?> type, String name, Class<?> result, Class<?>... params)
+	{
+		try
+		{
+			return LOOKUP.findStatic(type, name, MethodType.methodType(result, params));
+		}
+		catch(ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("No public static method " + type.getName() + "." + name, e);
+		}
+	}
+
+	private static RuntimeException rethrow(Throwable e)
+	{
+		if(e instanceof RuntimeException)
+			return (RuntimeException)e;
+		if(e instanceof Error)
+			throw (Error)e;
+		return new IllegalStateException(e);
+	}
+}
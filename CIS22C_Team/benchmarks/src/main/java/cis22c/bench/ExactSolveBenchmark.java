@@ -0,0 +1,50 @@
+package cis22c.bench;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ *
+ * Finding the cheapest circuit with the two exact solvers, Held-Karp and
+ * branch and bound, on graphs small enough for Held-Karp's 2^n table.
+ *
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ExactSolveBenchmark
+{
+	@Param({ "HELD_KARP", "BRANCH_AND_BOUND" })
+	public Core.Solver solver;
+
+	@Param({ "SPARSE", "COMPLETE" })
+	public GraphFamilies.Family family;
+
+	@Param({ "10", "14", "18" })
+	public int size;
+
+	@Param("42")
+	public long seed;
+
+	private Object graph;
+
+	@Setup(Level.Trial)
+	public void generate()
+	{
+		graph = GraphFamilies.generate(family, size, seed).build();
+		Core.freeze(graph);
+	}
+
+	@Benchmark
+	public List<Object> solve()
+	{
+		List<Object> cycle = new ArrayList<>();
+		solver.solve(solver.create(), graph, cycle);
+		return cycle;
+	}
+}
@@ -0,0 +1,192 @@
+package cis22c.bench;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ *
+ * Seeded synthetic graphs for the benchmarks. The same family, size and seed
+ * always give the same cities, roads and distances (whole numbers 1 to 100, as
+ * the cities*.txt format needs).
+ *
+ *   SPARSE           a circuit through all cities in random order plus one random
+ *                    road per city, so about three roads each
+ *   COMPLETE         a road between every two cities
+ *   GRID             cities on a grid with an even number of columns, roads
+ *                    between grid neighbors; always has a circuit
+ *   NON_HAMILTONIAN  a connected, 2-connected, non-bipartite graph with no
+ *                    circuit, so Feasibility lets it through and the solvers
+ *                    must search it all (see nonHamiltonian)
+ *
+ * The actual number of cities can differ slightly from the size asked for
+ * (GRID rounds to a full grid, NON_HAMILTONIAN is always odd).
+ *
+ */
+
+public final class GraphFamilies
+{
+	public enum Family
+	{
+		SPARSE, COMPLETE, GRID, NON_HAMILTONIAN
+	}
+
+	// A generated graph as parallel edge arrays, the form Graph.addEdges takes.
+	static final class Edges
+	{
+		final String[] names;
+		int[] src = new int[16], dst = new int[16];
+		double[] cost = new double[16];
+		int count;
+
+		private final Random random;
+
+		Edges(int size, long seed)
+		{
+			names = new String[size];
+			for(int i = 0; i < size; i++)
+				names[i] = "City" + i;
+			random = new Random(seed);
+		}
+
+		void add(int a, int b)
+		{
+			if(count == src.length)
+			{
+				src = Arrays.copyOf(src, count * 2);
+				dst = Arrays.copyOf(dst, count * 2);
+				cost = Arrays.copyOf(cost, count * 2);
+			}
+			src[count] = a;
+			dst[count] = b;
+			cost[count++] = 1 + random.nextInt(100);
+		}
+
+		// A new graph holding these edges.
+		Object build()
+		{
+			Object graph = Core.newGraph();
+			Core.addEdges(graph, names, src, dst, cost, count);
+			return graph;
+		}
+
+		// Writes the edges in the cities*.txt format GraphLoader reads, each under its first city.
+		void writeText(File file) throws IOException
+		{
+			List<List<Integer>> byCity = new ArrayList<>();
+			for(int i = 0; i < names.length; i++)
+				byCity.add(new ArrayList<Integer>());
+			for(int i = 0; i < count; i++)
+				byCity.get(src[i]).add(i);
+
+			try(Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)))
+			{
+				for(int v = 0; v < names.length; v++)
+				{
+					List<Integer> edges = byCity.get(v);
+					if(edges.isEmpty())
+						continue;
+					out.write(edges.size() + "\n" + names[v] + "\n");
+					for(int e : edges)
+						out.write(names[dst[e]] + "\n" + (int)cost[e] + "\n");
+				}
+			}
+		}
+	}
+
+	private GraphFamilies()
+	{
+	}
+
+	static Edges generate(Family family, int size, long seed)
+	{
+		if(size < 4)
+			throw new IllegalArgumentException("Benchmark graphs need at least 4 cities.");
+		switch(family)
+		{
+		case SPARSE:
+			return sparse(size, seed);
+		case COMPLETE:
+			return complete(size, seed);
+		case GRID:
+			return grid(size, seed);
+		default:
+			return nonHamiltonian(size, seed);
+		}
+	}
+
+	private static Edges sparse(int size, long seed)
+	{
+		Edges edges = new Edges(size, seed);
+		int[] order = new int[size];
+		for(int i = 0; i < size; i++)
+			order[i] = i;
+		for(int i = size - 1; i > 0; i--)
+		{
+			int j = edges.random.nextInt(i + 1);
+			int t = order[i];
+			order[i] = order[j];
+			order[j] = t;
+		}
+		for(int i = 0; i < size; i++)
+			edges.add(order[i], order[(i + 1) % size]);
+		for(int i = 0; i < size; i++)
+		{
+			int j = edges.random.nextInt(size);
+			if(j != i)
+				edges.add(i, j);
+		}
+		return edges;
+	}
+
+	private static Edges complete(int size, long seed)
+	{
+		Edges edges = new Edges(size, seed);
+		for(int i = 0; i < size; i++)
+		{
+			for(int j = i + 1; j < size; j++)
+				edges.add(i, j);
+		}
+		return edges;
+	}
+
+	private static Edges grid(int size, long seed)
+	{
+		int columns = Math.max(2, (int)Math.round(Math.sqrt(size)) & ~1);
+		int rows = Math.max(2, (size + columns - 1) / columns);
+		Edges edges = new Edges(rows * columns, seed);
+		for(int r = 0; r < rows; r++)
+		{
+			for(int c = 0; c < columns; c++)
+			{
+				int v = r * columns + c;
+				if(c + 1 < columns)
+					edges.add(v, v + 1);
+				if(r + 1 < rows)
+					edges.add(v, v + columns);
+			}
+		}
+		return edges;
+	}
+
+	// Groups A (k cities) and B (k + 1) joined in a ring A0 B0 A1 B1 ... with the
+	// last B city tied to A0 and A1, random A-B chords, and a single A0-A1 road so
+	// it isn't bipartite. A circuit would need 2(k + 1) roads into B but A only
+	// has 2k road ends, two of them spent on A0-A1, so there is none.
+	private static Edges nonHamiltonian(int size, long seed)
+	{
+		int k = Math.max(2, (size - 1) / 2);
+		Edges edges = new Edges(2 * k + 1, seed);
+		for(int i = 0; i < k; i++)
+		{
+			edges.add(i, k + i);
+			edges.add(k + i, (i + 1) % k);
+		}
+		edges.add(0, 2 * k);
+		edges.add(1, 2 * k);
+		edges.add(0, 1);
+		for(int i = 0; i < k / 2; i++)
+			edges.add(edges.random.nextInt(k), k + edges.random.nextInt(k + 1));
+		return edges;
+	}
+}
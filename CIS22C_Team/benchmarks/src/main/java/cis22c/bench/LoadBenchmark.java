@@ -0,0 +1,68 @@
+package cis22c.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ *
+ * Reading a graph file into a new Graph, in the cities*.txt text format
+ * (GraphLoader) and the binary format (BinaryGraphFile). The files are written
+ * to a temporary directory once per trial and stay in the page cache, so this
+ * measures parsing rather than the disk.
+ *
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadBenchmark
+{
+	@Param({ "SPARSE", "COMPLETE", "GRID" })
+	public GraphFamilies.Family family;
+
+	@Param({ "100", "1000" })
+	public int size;
+
+	@Param("42")
+	public long seed;
+
+	private File text, binary;
+
+	@Setup(Level.Trial)
+	public void writeFiles() throws IOException
+	{
+		GraphFamilies.Edges edges = GraphFamilies.generate(family, size, seed);
+		text = File.createTempFile("bench-", ".txt");
+		binary = File.createTempFile("bench-", ".bin");
+		edges.writeText(text);
+		Core.saveBinary(edges.build(), binary);
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteFiles()
+	{
+		text.delete();
+		binary.delete();
+	}
+
+	@Benchmark
+	public Object text()
+	{
+		Object graph = Core.newGraph();
+		Core.loadText(text, graph);
+		return graph;
+	}
+
+	@Benchmark
+	public Object binary()
+	{
+		Object graph = Core.newGraph();
+		Core.loadBinary(binary, graph);
+		return graph;
+	}
+}
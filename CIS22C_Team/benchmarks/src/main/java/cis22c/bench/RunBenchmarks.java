@@ -0,0 +1,29 @@
+package cis22c.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ *
+ * Entry point of benchmarks.jar. Takes the usual JMH command line (e.g. a
+ * benchmark name pattern, -p size=100, -rf csv) and, unless told otherwise,
+ * writes the results as JSON to jmh-result.json.
+ *
+ */
+
+public class RunBenchmarks
+{
+	public static void main(String[] args) throws Exception
+	{
+		CommandLineOptions cli = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+		if(!cli.getResultFormat().hasValue())
+			options.resultFormat(ResultFormatType.JSON);
+		if(!cli.getResult().hasValue())
+			options.result("jmh-result.json");
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,54 @@
+package cis22c.bench;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ *
+ * Searching for a circuit with each solver. The graph's snapshot is built once
+ * in setup and reused (Graph caches it), so this measures the search itself.
+ * NON_HAMILTONIAN graphs pass every Feasibility test and show the cost of
+ * proving there is no circuit.
+ *
+ * Held-Karp runs in ExactSolveBenchmark, since its memory grows as 2^n.
+ *
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SolveBenchmark
+{
+	@Param({ "HAMILTONIAN", "PRUNED_SEARCH", "BRANCH_AND_BOUND", "TOUR_HEURISTICS" })
+	public Core.Solver solver;
+
+	@Param({ "SPARSE", "GRID", "NON_HAMILTONIAN" })
+	public GraphFamilies.Family family;
+
+	@Param({ "12", "18", "24" })
+	public int size;
+
+	@Param("42")
+	public long seed;
+
+	private Object graph;
+
+	@Setup(Level.Trial)
+	public void generate()
+	{
+		graph = GraphFamilies.generate(family, size, seed).build();
+		Core.freeze(graph);
+	}
+
+	@Benchmark
+	public List<Object> solve()
+	{
+		List<Object> cycle = new ArrayList<>();
+		solver.solve(solver.create(), graph, cycle);
+		return cycle;
+	}
+}
@@ -0,0 +1,59 @@
+package cis22c.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ *
+ * Breadth- and depth-first traversal of the whole graph from its first city.
+ * The visitor only counts the cities it is handed.
+ *
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TraversalBenchmark
+{
+	@Param({ "SPARSE", "COMPLETE", "GRID", "NON_HAMILTONIAN" })
+	public GraphFamilies.Family family;
+
+	@Param({ "100", "1000" })
+	public int size;
+
+	@Param("42")
+	public long seed;
+
+	private Object graph;
+	private String start;
+	private Object visitor;
+	private int visited;
+
+	@Setup(Level.Trial)
+	public void generate()
+	{
+		GraphFamilies.Edges edges = GraphFamilies.generate(family, size, seed);
+		graph = edges.build();
+		start = edges.names[0];
+		visitor = Core.visitor(city -> ++visited);
+	}
+
+	@Benchmark
+	public int breadthFirst()
+	{
+		visited = 0;
+		Core.breadthFirstTraversal(graph, start, visitor);
+		return visited;
+	}
+
+	@Benchmark
+	public int depthFirst()
+	{
+		visited = 0;
+		Core.depthFirstTraversal(graph, start, visitor);
+		return visited;
+	}
+}
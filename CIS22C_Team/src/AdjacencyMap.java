@@ -0,0 +1,199 @@
+import java.util.*;
+
+/**
+ *
+ * Adjacency list of a Vertex: an open-addressing map from neighbor vertex id to
+ * edge cost, specialized to primitives.
+ *
+ * Entries live in parallel arrays (ids, costs, neighbor vertices) packed at
+ * positions 0 .. size()-1 in insertion order, and a linear-probing table of
+ * positions finds an id. Adding, looking up and removing an edge allocate
+ * nothing once the arrays have grown, costs are never boxed, and iterating is a
+ * plain loop over positions:
+ *
+ *   for(int i = 0; i < adj.size(); i++)
+ *       visit(adj.vertexAt(i), adj.costAt(i));
+ *
+ * Removing an entry moves the last entry into its position, so removals change
+ * the order of the remaining neighbors.
+ *
+ */
+
+public class AdjacencyMap<E>
+{
+	private static final int EMPTY = -1;
+
+	private int[] ids;
+	private double[] costs;
+	private Vertex<E>[] vertices;
+	private int size;
+
+	// linear-probing table of positions, kept at most half full
+	private int[] slots;
+	private int mask;
+
+	public AdjacencyMap()
+	{
+		this(4);
+	}
+
+	@SuppressWarnings("unchecked")
+	public AdjacencyMap(int capacity)
+	{
+		capacity = Math.max(capacity, 2);
+		ids = new int[capacity];
+		costs = new double[capacity];
+		vertices = (Vertex<E>[]) new Vertex<?>[capacity];
+
+		int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+		slots = new int[tableSize];
+		Arrays.fill(slots, EMPTY);
+		mask = tableSize - 1;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	public boolean containsKey(int id)
+	{
+		return slots[find(id)] != EMPTY;
+	}
+
+	// Cost of the edge to the neighbor with this id, or NaN if there is none.
+	public double get(int id)
+	{
+		int pos = slots[find(id)];
+		return pos == EMPTY ? Double.NaN : costs[pos];
+	}
+
+	// Adds neighbor with cost unless it is already present; returns true if added.
+	public boolean put(Vertex<E> neighbor, double cost)
+	{
+		int slot = find(neighbor.id);
+		if(slots[slot] != EMPTY)
+			return false;
+
+		if(size == ids.length)
+			grow();
+		if((size + 1) * 2 > slots.length)
+		{
+			rehash(slots.length * 2);
+			slot = find(neighbor.id);
+		}
+
+		ids[size] = neighbor.id;
+		costs[size] = cost;
+		vertices[size] = neighbor;
+		slots[slot] = size++;
+		return true;
+	}
+
+	// Removes the neighbor with this id; returns true if it was present.
+	public boolean remove(int id)
+	{
+		int slot = find(id);
+		int pos = slots[slot];
+		if(pos == EMPTY)
+			return false;
+
+		deleteSlot(slot);
+
+		// fill the hole with the last entry so the entries stay packed
+		int last = --size;
+		if(pos != last)
+		{
+			ids[pos] = ids[last];
+			costs[pos] = costs[last];
+			vertices[pos] = vertices[last];
+			slots[find(ids[pos])] = pos;
+		}
+		vertices[last] = null;
+		return true;
+	}
+
+	public void clear()
+	{
+		Arrays.fill(vertices, 0, size, null);
+		Arrays.fill(slots, EMPTY);
+		size = 0;
+	}
+
+	// Id of the neighbor at position i (0 <= i < size()).
+	public int idAt(int i)
+	{
+		return ids[i];
+	}
+
+	// Neighbor vertex at position i (0 <= i < size()).
+	public Vertex<E> vertexAt(int i)
+	{
+		return vertices[i];
+	}
+
+	// Edge cost at position i (0 <= i < size()).
+	public double costAt(int i)
+	{
+		return costs[i];
+	}
+
+	// Slot holding id, or the empty slot where it would go.
+	private int find(int id)
+	{
+		int slot = hash(id) & mask;
+		while(slots[slot] != EMPTY && ids[slots[slot]] != id)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	// Empties a slot, shifting later entries of the probe run back so none is lost.
+	private void deleteSlot(int hole)
+	{
+		slots[hole] = EMPTY;
+		int slot = hole;
+		while(true)
+		{
+			slot = (slot + 1) & mask;
+			if(slots[slot] == EMPTY)
+				return;
+
+			int home = hash(ids[slots[slot]]) & mask;
+			boolean stays = hole <= slot ? (hole < home && home <= slot) : (hole < home || home <= slot);
+			if(!stays)
+			{
+				slots[hole] = slots[slot];
+				slots[slot] = EMPTY;
+				hole = slot;
+			}
+		}
+	}
+
+	private void grow()
+	{
+		int capacity = ids.length * 2;
+		ids = Arrays.copyOf(ids, capacity);
+		costs = Arrays.copyOf(costs, capacity);
+		vertices = Arrays.copyOf(vertices, capacity);
+	}
+
+	private void rehash(int tableSize)
+	{
+		slots = new int[tableSize];
+		Arrays.fill(slots, EMPTY);
+		mask = tableSize - 1;
+		for(int pos = 0; pos < size; pos++)
+			slots[find(ids[pos])] = pos;
+	}
+
+	private static int hash(int id)
+	{
+		int h = id * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
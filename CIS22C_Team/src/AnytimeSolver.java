@@ -0,0 +1,174 @@
+import java.util.*;
+
+/**
+ *
+ * Solves within a time budget and hands out better circuits as they are found.
+ *
+ * The stages run from fast to thorough, each starting from the best circuit so far:
+ *
+ *   1. TourHeuristics builds a first circuit,
+ *   2. LocalSearch improves it,
+ *   3. BranchAndBound searches for the cheapest circuit (graphs of up to
+ *      EXACT_MAX_VERTICES cities, since it needs their full cost matrix) and can
+ *      prove it optimal, or prove that there is no circuit at all.
+ *
+ * On larger graphs where the heuristics find nothing, PrunedSearch looks for
+ * any circuit instead.
+ *
+ * Graphs that Feasibility rules out are reported INFEASIBLE before any stage runs.
+ *
+ * Every stage stops by the deadline, or is skipped once it has passed, so
+ * solve() returns shortly after the budget runs out with the best circuit so far and a SolveResult.Status saying
+ * what is known about it. The result's metrics time each stage and count the
+ * nodes of the search stages.
+ *
+ */
+
+public class AnytimeSolver<E>
+{
+	// Largest graph the branch-and-bound stage runs on.
+	public static final int EXACT_MAX_VERTICES = BranchAndBound.MAX_VERTICES;
+
+	private static final String EXHAUSTED = "The search tried every route without closing a circuit.";
+
+	// best circuit of the current solve
+	private List<Vertex<E>> best;
+	private double bestCost;
+	private SolutionListener<E> listener;
+	private SolverMetrics metrics;
+
+	public SolveResult<E> solve(Graph<E> graph, long millis)
+	{
+		return solve(graph, millis, null);
+	}
+
+	// Best circuit found in about millis milliseconds; listener (may be null) hears of each better one.
+	public SolveResult<E> solve(Graph<E> graph, long millis, SolutionListener<E> listener)
+	{
+		if(millis <= 0)
+			throw new IllegalArgumentException("Time budget must be positive.");
+
+		long start = System.nanoTime();
+		long deadline = start + millis * 1000000L;
+		this.listener = listener;
+		metrics = new SolverMetrics();
+		best = null;
+		bestCost = Double.POSITIVE_INFINITY;
+		try
+		{
+			long phase = System.nanoTime();
+			CsrGraph<E> snapshot = graph.freeze();
+			int n = snapshot.size();
+			if(n == 0)
+				return infeasible("There are no cities.", start);
+			String reason = Feasibility.check(snapshot);
+			metrics.addPhase("feasibility", System.nanoTime() - phase);
+			if(reason != null)
+				return infeasible(reason, start);
+
+			if(remaining(deadline) <= 0)
+				return result(SolveResult.Status.TIMEOUT, Double.NaN, start);
+
+			phase = System.nanoTime();
+			int[] tour = TourHeuristics.tour(snapshot, TourHeuristics.Construction.BEST, deadline);
+			metrics.addPhase("construction", System.nanoTime() - phase);
+			if(tour != null)
+			{
+				offer(snapshot, tour);
+				phase = System.nanoTime();
+				tour = improve(snapshot, tour, deadline);
+				metrics.addPhase("local search", System.nanoTime() - phase);
+				offer(snapshot, tour);
+			}
+
+			// read once: a time limit of 0 would mean no limit at all
+			long left = remaining(deadline);
+			if(n <= EXACT_MAX_VERTICES && left > 0)
+			{
+				BranchAndBound<E> exact = new BranchAndBound<>();
+				exact.setTimeLimit(left);
+				exact.setListener(this::offer);
+				exact.setMetrics(metrics);
+				exact.setInitialTour(tour); // null if construction failed: no point trying it again
+				boolean found = exact.solveHamil(snapshot, new ArrayList<Vertex<E>>());
+				if(exact.isOptimal())
+					return found ? result(SolveResult.Status.OPTIMAL, bestCost, start) : infeasible(EXHAUSTED, start);
+				return result(found ? SolveResult.Status.FEASIBLE : SolveResult.Status.TIMEOUT, exact.getLowerBound(), start);
+			}
+
+			left = remaining(deadline);
+			if(tour == null && left > 0)
+			{
+				PrunedSearch<E> search = new PrunedSearch<>();
+				search.setTimeLimit(left);
+				search.setMetrics(metrics);
+				List<Vertex<E>> cycle = new ArrayList<>();
+				if(search.solveHamil(snapshot, cycle))
+				{
+					int[] found = new int[n];
+					for(int i = 0; i < n; i++)
+						found[i] = snapshot.indexOfId(cycle.get(i).id);
+					offer(snapshot, found);
+					offer(snapshot, improve(snapshot, found, deadline));
+				}
+				else if(!search.isTimedOut())
+					return infeasible(EXHAUSTED, start);
+			}
+			return result(best != null ? SolveResult.Status.FEASIBLE : SolveResult.Status.TIMEOUT, Double.NaN, start);
+		}
+		finally
+		{
+			this.listener = null;
+			metrics = null;
+		}
+	}
+
+	// Improved copy of tour, or tour itself when it is too short to improve.
+	private int[] improve(CsrGraph<E> snapshot, int[] tour, long deadline)
+	{
+		if(tour.length < 4 || remaining(deadline) <= 0)
+			return tour;
+		int[] copy = tour.clone();
+		new LocalSearch<E>().improve(snapshot, copy, deadline);
+		return copy;
+	}
+
+	private void offer(CsrGraph<E> snapshot, int[] tour)
+	{
+		double cost = TourHeuristics.tourCost(snapshot, tour);
+		if(!(cost < bestCost))
+			return;
+		List<Vertex<E>> cycle = new ArrayList<>(tour.length + 1);
+		for(int v : tour)
+			cycle.add(snapshot.vertex(v));
+		cycle.add(snapshot.vertex(tour[0]));
+		offer(cycle, cost);
+	}
+
+	private void offer(List<Vertex<E>> cycle, double cost)
+	{
+		if(!(cost < bestCost))
+			return;
+		best = Collections.unmodifiableList(new ArrayList<>(cycle));
+		bestCost = cost;
+		if(listener != null)
+			listener.improved(best, cost);
+	}
+
+	private SolveResult<E> result(SolveResult.Status status, double lowerBound, long start)
+	{
+		double cost = best != null ? bestCost : Double.NaN;
+		return new SolveResult<E>(status, best, cost, lowerBound, (System.nanoTime() - start) / 1000000L, null, metrics);
+	}
+
+	private SolveResult<E> infeasible(String reason, long start)
+	{
+		return new SolveResult<E>(SolveResult.Status.INFEASIBLE, null, Double.NaN, Double.NaN, (System.nanoTime() - start) / 1000000L, reason, metrics);
+	}
+
+	// Whole milliseconds left before deadline.
+	private static long remaining(long deadline)
+	{
+		return Math.max(0, (deadline - System.nanoTime()) / 1000000L);
+	}
+}
@@ -0,0 +1,275 @@
+import java.io.*;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * Solves many graph files at once, e.g. one per depot, without the menu.
+ *
+ *   java BatchSolver [-t millis] [-j threads] path...
+ *
+ * Each path is a graph file (cities*.txt text format or BinaryGraphFile) or a
+ * directory, whose .txt and .bin files are all solved; "-" reads paths from
+ * standard input, one per line, and starts solving before the input ends.
+ *
+ * Every graph gets a budget of -t milliseconds (default DEFAULT_MILLIS) for
+ * loading and solving together: AnytimeSolver gets what loading left of it,
+ * and a graph still running GRACE_MILLIS past its budget is cancelled and
+ * reported as TIMEOUT. Up to -j graphs (default: one per processor) are loaded
+ * and solved at a time. Results are printed as they complete, not in input
+ * order, one tab-separated line per graph:
+ *
+ *   path  status  cost  milliseconds  circuit, or why there is none
+ *
+ * where status is a SolveResult.Status or ERROR for a file that can't be read.
+ * A printer thread of its own prints them, so they keep coming while "-" waits
+ * for more input.
+ *
+ * Loading and solving run on virtual threads where the Java runtime has them
+ * (Java 21 and up), otherwise on daemon threads, as many as needed. -j bounds
+ * the graphs being loaded and solved, but it can't take back what a cancelled
+ * graph is still using: one that ignores the interrupt (e.g. stuck reading its
+ * file) keeps its thread, CPU and memory until its work ends, while the next
+ * graph already runs in its place.
+ *
+ */
+
+public class BatchSolver
+{
+	public static final long DEFAULT_MILLIS = 5000;
+	// how long past its budget a graph may take to hand back its best circuit
+	public static final long GRACE_MILLIS = 500;
+
+	private final long millis;
+	private final ExecutorService executor; // waits for each graph's work, up to its budget
+	private final ExecutorService workers; // loads and solves, not bounded by -j (see above)
+	private final CompletionService<String> results;
+	private final Semaphore running; // -j: graphs loaded and solved at once, bar cancelled ones still running
+	private final PrintStream out;
+	private final Thread printer;
+	private final AtomicInteger submitted = new AtomicInteger();
+	private int printed; // guarded by this
+
+	public BatchSolver(long millis, int threads, PrintStream out)
+	{
+		if(millis <= 0)
+			throw new IllegalArgumentException("Time budget must be positive.");
+		if(threads < 1)
+			throw new IllegalArgumentException("Need at least one thread.");
+		this.millis = millis;
+		this.out = out;
+		executor = newExecutor(threads);
+		workers = newExecutor(0); // a cancelled graph may not stop at once; the next one mustn't wait for it
+		results = new ExecutorCompletionService<String>(executor);
+		running = new Semaphore(threads);
+		printer = new Thread(this::printResults, "BatchSolver printer");
+		printer.setDaemon(true);
+		printer.start();
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		long millis = DEFAULT_MILLIS;
+		int threads = Runtime.getRuntime().availableProcessors();
+		List<String> paths = new ArrayList<>();
+		try
+		{
+			for(int i = 0; i < args.length; i++)
+			{
+				if(!args[i].equals("-t") && !args[i].equals("-j"))
+					paths.add(args[i]);
+				else if(i + 1 == args.length)
+				{
+					paths.clear(); // the option's value is missing
+					break;
+				}
+				else if(args[i].equals("-t"))
+					millis = Long.parseLong(args[++i]);
+				else
+					threads = Integer.parseInt(args[++i]);
+			}
+		}
+		catch(NumberFormatException e)
+		{
+			paths.clear();
+		}
+		if(paths.isEmpty() || millis <= 0 || threads < 1)
+		{
+			System.out.println("Usage: java BatchSolver [-t millis] [-j threads] <graph file, directory or -> ...");
+			System.out.println("where millis and threads are whole numbers above 0.");
+			return;
+		}
+
+		long start = System.nanoTime();
+		BatchSolver batch = new BatchSolver(millis, threads, System.out);
+		try
+		{
+			for(String path : paths)
+			{
+				if(path.equals("-"))
+				{
+					BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+					String line;
+					while((line = in.readLine()) != null)
+					{
+						if(!line.trim().isEmpty())
+							batch.submit(new File(line.trim()));
+					}
+				}
+				else
+					batch.submit(new File(path));
+			}
+			batch.finish();
+		}
+		finally
+		{
+			batch.printer.interrupt();
+			batch.executor.shutdownNow();
+			batch.workers.shutdownNow();
+		}
+		System.err.println("Solved " + batch.submitted + " graphs in " + (System.nanoTime() - start) / 1000000L + " ms.");
+	}
+
+	// Queues file, or every graph file in it if it is a directory.
+	public void submit(File file)
+	{
+		File[] files = file.isDirectory() ? file.listFiles((dir, name) -> name.endsWith(".txt") || name.endsWith(".bin")) : null;
+		if(files != null)
+		{
+			Arrays.sort(files);
+			for(File f : files)
+				submit(f);
+			return;
+		}
+
+		results.submit(() -> solve(file));
+		submitted.incrementAndGet();
+	}
+
+	// Waits until every result submitted so far has been printed.
+	public synchronized void finish() throws InterruptedException
+	{
+		while(printed < submitted.get())
+			wait();
+	}
+
+	// The printer thread: prints each result as it completes, until interrupted.
+	private void printResults()
+	{
+		try
+		{
+			while(true)
+			{
+				Future<String> done = results.take();
+				try
+				{
+					out.println(done.get());
+				}
+				catch(ExecutionException e)
+				{
+					out.println("?\tERROR\t\t\t" + e.getCause()); // solve() catches what it expects
+				}
+				synchronized(this)
+				{
+					++printed;
+					notifyAll();
+				}
+			}
+		}
+		catch(InterruptedException e)
+		{
+			// finished
+		}
+	}
+
+	// One result line for file, once its work is done or its budget is up.
+	private String solve(File file) throws InterruptedException
+	{
+		running.acquire();
+		long start = System.nanoTime();
+		Future<String> work = workers.submit(() -> load(file, start));
+		try
+		{
+			return work.get(millis + GRACE_MILLIS, TimeUnit.MILLISECONDS);
+		}
+		catch(TimeoutException e)
+		{
+			return file.getPath() + "\t" + SolveResult.Status.TIMEOUT + "\t\t" + elapsed(start) + "\tCancelled " + GRACE_MILLIS + " ms past the budget.";
+		}
+		catch(ExecutionException e)
+		{
+			return file.getPath() + "\tERROR\t\t\t" + e.getCause();
+		}
+		finally
+		{
+			work.cancel(true);
+			running.release();
+		}
+	}
+
+	// Loads file and solves it in what is left of the budget since start.
+	private String load(File file, long start)
+	{
+		try
+		{
+			Graph<String> graph = new Graph<String>();
+			if(BinaryGraphFile.isBinary(file))
+				BinaryGraphFile.read(file, graph);
+			else
+				GraphLoader.load(file, graph);
+
+			long left = millis - elapsed(start);
+			if(left <= 0)
+				return file.getPath() + "\t" + SolveResult.Status.TIMEOUT + "\t\t" + elapsed(start) + "\tLoading took the whole budget.";
+
+			SolveResult<String> result = new AnytimeSolver<String>().solve(graph, left);
+			StringBuilder line = new StringBuilder();
+			line.append(file.getPath()).append('\t').append(result.getStatus()).append('\t');
+			if(result.hasCycle())
+				line.append(result.getCost());
+			line.append('\t').append(elapsed(start)).append('\t');
+			if(result.hasCycle())
+			{
+				List<Vertex<String>> cycle = result.getCycle();
+				for(int i = 0; i < cycle.size(); i++)
+					line.append(i > 0 ? " -> " : "").append(cycle.get(i).data);
+			}
+			else if(result.getReason() != null)
+				line.append(result.getReason());
+			return line.toString();
+		}
+		catch(IOException | RuntimeException e)
+		{
+			return file.getPath() + "\tERROR\t\t\t" + e.getMessage();
+		}
+	}
+
+	private static long elapsed(long start)
+	{
+		return (System.nanoTime() - start) / 1000000L;
+	}
+
+	// A virtual thread per task if this Java has them, else a pool of daemon threads, so
+	// work that ignores cancelling can't keep the program running: of the given size,
+	// or a new thread whenever none is idle if threads is 0.
+	private static ExecutorService newExecutor(int threads)
+	{
+		try
+		{
+			Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService)virtual.invoke(null);
+		}
+		catch(ReflectiveOperationException e)
+		{
+			ThreadFactory daemons = task ->
+			{
+				Thread thread = new Thread(task);
+				thread.setDaemon(true);
+				return thread;
+			};
+			return threads == 0 ? Executors.newCachedThreadPool(daemons) : Executors.newFixedThreadPool(threads, daemons);
+		}
+	}
+}
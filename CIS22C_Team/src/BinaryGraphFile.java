@@ -0,0 +1,214 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ *
+ * Versioned binary graph file, so large graphs can be reloaded without parsing text.
+ *
+ * Layout (big-endian):
+ *
+ *   int      MAGIC ("HCGB")
+ *   int      VERSION
+ *   int      n, number of cities
+ *   int      m, number of adjacency entries (twice the number of edges)
+ *   n times  int byte length, then the city name in UTF-8
+ *   int[n+1] offsets  \
+ *   int[m]   targets   > the CsrGraph arrays
+ *   double[m] weights /
+ *
+ * Reading maps the file and copies each array out with one bulk get, then
+ * rebuilds every adjacency list in its saved order. The counts are checked
+ * against the file's length before anything is allocated, and every road must
+ * be listed at both of its ends with the same cost, since the solvers take the
+ * graph as undirected; files that break either rule are rejected as corrupt.
+ *
+ * Run as a program to convert a text file:
+ *   java BinaryGraphFile "cities input.txt" cities.bin
+ *
+ */
+
+public class BinaryGraphFile
+{
+	public static final int MAGIC = 0x48434742;
+	public static final int VERSION = 1;
+
+	// True if file starts with the binary graph file magic number.
+	public static boolean isBinary(File file) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			ByteBuffer head = ByteBuffer.allocate(4);
+			while(head.hasRemaining() && channel.read(head) >= 0)
+				;
+			return !head.hasRemaining() && head.getInt(0) == MAGIC;
+		}
+	}
+
+	public static void write(Graph<String> graph, File file) throws IOException
+	{
+		CsrGraph<String> snapshot = graph.freeze();
+		int n = snapshot.size();
+
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16)))
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(n);
+			out.writeInt(snapshot.edgeCount());
+			for(int v = 0; v < n; v++)
+			{
+				byte[] name = snapshot.label(v).getBytes(StandardCharsets.UTF_8);
+				out.writeInt(name.length);
+				out.write(name);
+			}
+			for(int offset : snapshot.offsets)
+				out.writeInt(offset);
+			for(int target : snapshot.targets)
+				out.writeInt(target);
+			for(double weight : snapshot.weights)
+				out.writeDouble(weight);
+		}
+	}
+
+	// Adds the graph stored in file to graph; throws IOException if it can't be read or is corrupt.
+	public static void read(File file, Graph<String> graph) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			if(channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Graph file too large to map: " + file);
+			MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			try
+			{
+				if(buf.getInt() != MAGIC)
+					throw new IOException("Not a binary graph file: " + file);
+				int version = buf.getInt();
+				if(version != VERSION)
+					throw new IOException("Unsupported binary graph file version " + version + ": " + file);
+
+				int n = buf.getInt();
+				int m = buf.getInt();
+				// each name takes at least its length int, then come offsets, targets and weights
+				if(n < 0 || m < 0 || 8L * n + 4 + 12L * m > buf.remaining())
+					throw new IOException("Corrupt binary graph file: " + file);
+
+				String[] names = new String[n];
+				for(int v = 0; v < n; v++)
+				{
+					int length = buf.getInt();
+					if(length < 0 || length > buf.remaining())
+						throw new IOException("Corrupt binary graph file: " + file);
+					byte[] name = new byte[length];
+					buf.get(name);
+					names[v] = new String(name, StandardCharsets.UTF_8);
+				}
+
+				int[] offsets = new int[n + 1];
+				int[] targets = new int[m];
+				double[] weights = new double[m];
+				buf.asIntBuffer().get(offsets);
+				buf.position(buf.position() + offsets.length * 4);
+				buf.asIntBuffer().get(targets);
+				buf.position(buf.position() + targets.length * 4);
+				buf.asDoubleBuffer().get(weights);
+
+				check(offsets, targets, file);
+				checkSymmetric(offsets, targets, weights, file);
+				graph.addAdjacency(names, offsets, targets, weights);
+			}
+			catch(RuntimeException e)
+			{
+				// BufferUnderflowException, NegativeArraySizeException, ...: the file is cut short or garbled
+				throw new IOException("Corrupt binary graph file: " + file, e);
+			}
+		}
+	}
+
+	private static void check(int[] offsets, int[] targets, File file) throws IOException
+	{
+		int n = offsets.length - 1;
+		if(offsets[0] != 0 || offsets[n] != targets.length)
+			throw new IOException("Corrupt binary graph file: " + file);
+		for(int v = 0; v < n; v++)
+		{
+			if(offsets[v] > offsets[v + 1])
+				throw new IOException("Corrupt binary graph file: " + file);
+		}
+		for(int target : targets)
+		{
+			if(target < 0 || target >= n)
+				throw new IOException("Corrupt binary graph file: " + file);
+		}
+	}
+
+	// Checks that v lists w with cost c exactly when w lists v with cost c, by
+	// comparing each adjacency list, sorted by target, with the reversed lists.
+	private static void checkSymmetric(int[] offsets, int[] targets, double[] weights, File file) throws IOException
+	{
+		int n = offsets.length - 1;
+		int[] reverseOffsets = new int[n + 1];
+		for(int target : targets)
+			++reverseOffsets[target + 1];
+		for(int v = 0; v < n; v++)
+			reverseOffsets[v + 1] += reverseOffsets[v];
+
+		// sources come in increasing order, so each reversed list is sorted
+		int[] sources = new int[targets.length];
+		double[] reverseWeights = new double[targets.length];
+		int[] next = Arrays.copyOf(reverseOffsets, n);
+		int maxDegree = 0;
+		for(int v = 0; v < n; v++)
+		{
+			maxDegree = Math.max(maxDegree, offsets[v + 1] - offsets[v]);
+			for(int e = offsets[v]; e < offsets[v + 1]; e++)
+			{
+				int pos = next[targets[e]]++;
+				sources[pos] = v;
+				reverseWeights[pos] = weights[e];
+			}
+		}
+
+		long[] row = new long[maxDegree]; // target << 32 | position in the list
+		for(int v = 0; v < n; v++)
+		{
+			int degree = offsets[v + 1] - offsets[v];
+			if(degree != reverseOffsets[v + 1] - reverseOffsets[v])
+				throw new IOException("Corrupt binary graph file, roads differ between their two ends: " + file);
+			for(int i = 0; i < degree; i++)
+				row[i] = (long)targets[offsets[v] + i] << 32 | i;
+			Arrays.sort(row, 0, degree);
+			for(int i = 0; i < degree; i++)
+			{
+				int e = offsets[v] + (int)row[i];
+				int r = reverseOffsets[v] + i;
+				if(sources[r] != targets[e] || Double.compare(reverseWeights[r], weights[e]) != 0)
+					throw new IOException("Corrupt binary graph file, roads differ between their two ends: " + file);
+			}
+		}
+	}
+
+	// Converts a text graph file to the binary format.
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length != 2)
+		{
+			System.out.println("Usage: java BinaryGraphFile <text graph file> <binary graph file>");
+			return;
+		}
+
+		Graph<String> graph = new Graph<String>();
+		GraphLoader.load(new File(args[0]), graph);
+		write(graph, new File(args[1]));
+		System.out.println("Converted " + graph.vertexSet.size() + " cities to " + args[1] + ".");
+	}
+}
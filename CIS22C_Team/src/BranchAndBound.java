@@ -0,0 +1,406 @@
+import java.util.*;
+
+/**
+ *
+ * Branch-and-bound solver for the minimum-cost Hamiltonian circuit, for graphs
+ * too large for Held-Karp.
+ *
+ * This is the Hamiltonian backtracking search with the path cost carried along.
+ * Neighbors are tried cheapest first, and a partial path is dropped as soon as
+ * its cost plus a lower bound on the rest of the circuit can't beat the best
+ * circuit found so far. The bound is the larger of:
+ *
+ *   - the cheapest-two-edges bound: every unvisited vertex still needs two
+ *     circuit edges, so half the sum of its two cheapest edges is a lower bound,
+ *   - the 1-tree bound: the minimum spanning tree of the unvisited vertices, plus
+ *     the cheapest edges linking them to the current vertex and to the start.
+ *
+ * The best circuit starts out as the one TourHeuristics builds, so there is a
+ * bound to prune against from the first node on.
+ *
+ * With a time limit the search may stop early. The best circuit found so far is
+ * still returned, and getLowerBound()/getGap() report how far from optimal it can
+ * be at most. The limit covers the whole solve: setting up, building the first
+ * circuit and bounding the root stop at it too.
+ *
+ * The cost matrix and the neighbor orders take about 12 * n^2 bytes, so the
+ * solver is limited to MAX_VERTICES vertices, about 50 MB.
+ *
+ */
+
+public class BranchAndBound<E> extends CircuitSolver<E>
+{
+	public static final int MAX_VERTICES = 2000;
+
+	// Search nodes expanded between checks of the time limit, for graphs of up to 8 cities.
+	private static final int CHECK_INTERVAL = 4096;
+
+	private long timeLimit;
+	private SolutionListener<E> listener;
+	private int[] initialTour;
+	private boolean noInitialTour; // the caller's heuristics found none, so don't run them again
+	private SolverMetrics.Counter counter;
+
+	// result of the last solve
+	private double cost = Double.NaN;
+	private double lowerBound = Double.NaN;
+	private boolean optimal;
+	private long nodes;
+
+	// search state
+	private CsrGraph<E> snapshot;
+	private int n;
+	private double[] dist;
+	private int[][] order;
+	private double[] cheapest, halfTwoCheapest;
+	private double unvisitedHalfSum;
+	private long[] visited;
+	private int[] path, bestPath;
+	private double bestCost;
+	private double[] primKey;
+	private long[] inTree;
+	private long deadline;
+	private int sinceCheck, checkInterval;
+	private boolean timedOut;
+
+	// Limits the search to the given number of milliseconds, 0 for no limit.
+	public void setTimeLimit(long millis)
+	{
+		if(millis < 0)
+			throw new IllegalArgumentException("Time limit can't be negative.");
+		timeLimit = millis;
+	}
+
+	// Tells listener about every better circuit as soon as it is found; null for none.
+	public void setListener(SolutionListener<E> listener)
+	{
+		this.listener = listener;
+	}
+
+	// Circuit (snapshot indices, starting at 0) to start the next solve from instead of a
+	// heuristic one; null to start from none, e.g. when the same heuristics already failed.
+	void setInitialTour(int[] tour)
+	{
+		initialTour = tour;
+		noInitialTour = tour == null;
+	}
+
+	boolean solve(CsrGraph<E> graph, List<Vertex<E>> cycleList)
+	{
+		cost = Double.NaN;
+		lowerBound = Double.NaN;
+		optimal = false;
+		nodes = 0;
+		if(graph.size() == 0)
+			return false;
+		if(graph.size() > MAX_VERTICES)
+			throw new IllegalArgumentException("Branch and bound is limited to " + MAX_VERTICES + " vertices.");
+
+		long start = System.nanoTime();
+		deadline = timeLimit > 0 ? start + timeLimit * 1000000L : Long.MAX_VALUE;
+		timedOut = false;
+		snapshot = graph;
+		setUp(snapshot);
+		metrics.addPhase("setup", System.nanoTime() - start);
+
+		// start from a heuristic circuit, so the search prunes against it from the first node
+		start = System.nanoTime();
+		int[] seed = initialTour != null && initialTour.length == n ? initialTour
+				: timedOut || noInitialTour ? null : TourHeuristics.tour(snapshot, TourHeuristics.Construction.BEST, deadline);
+		initialTour = null;
+		noInitialTour = false;
+		double seedCost = seed != null ? TourHeuristics.tourCost(snapshot, seed) : Double.POSITIVE_INFINITY;
+		if(seedCost < Double.POSITIVE_INFINITY)
+		{
+			// the search keeps vertex 0 first
+			int shift = 0;
+			while(seed[shift] != 0)
+				++shift;
+			bestPath = new int[n];
+			for(int i = 0; i < n; i++)
+				bestPath[i] = seed[(shift + i) % n];
+			bestCost = seedCost;
+			report();
+		}
+		metrics.addPhase("heuristic", System.nanoTime() - start);
+
+		// NaN while unknown, i.e. if the time runs out before the root is bounded
+		double rootBound = Double.NaN;
+		start = System.nanoTime();
+		if(timedOut || start > deadline)
+			timedOut = true;
+		else
+		{
+			counter = metrics.counter(n);
+			rootBound = bound(0, 1, Double.POSITIVE_INFINITY);
+			if(rootBound < Double.POSITIVE_INFINITY)
+				search(0, 1, 0.0);
+			else
+				counter.prune();
+			counter.flush();
+			counter = null;
+		}
+		metrics.addPhase("search", System.nanoTime() - start);
+
+		if(bestPath == null)
+		{
+			// an exhausted search proves there is no circuit at all
+			optimal = !timedOut;
+			return false;
+		}
+
+		cost = bestCost;
+		optimal = !timedOut;
+		lowerBound = optimal ? bestCost : Math.min(rootBound, bestCost);
+		for(int i = 0; i < n; i++)
+			cycleList.add(snapshot.vertex(bestPath[i]));
+		cycleList.add(snapshot.vertex(0));
+		return true;
+	}
+
+	// Cost of the best circuit found by the last solve, or NaN if none was found.
+	public double getCost()
+	{
+		return cost;
+	}
+
+	// Proven lower bound on the optimal circuit cost, or NaN if no circuit was found
+	// or the time ran out before there was one.
+	public double getLowerBound()
+	{
+		return lowerBound;
+	}
+
+	// Relative gap between the best circuit and the lower bound; 0 once proven optimal.
+	public double getGap()
+	{
+		if(Double.isNaN(cost))
+			return Double.NaN;
+		if(optimal || cost == 0)
+			return 0;
+		return (cost - lowerBound) / cost;
+	}
+
+	// True when the last solve finished, i.e. its answer is proven optimal (or proven infeasible).
+	public boolean isOptimal()
+	{
+		return optimal;
+	}
+
+	// Search nodes expanded by the last solve.
+	public long getNodeCount()
+	{
+		return nodes;
+	}
+
+	private void setUp(CsrGraph<E> snapshot)
+	{
+		n = snapshot.size();
+		dist = snapshot.costMatrix();
+		order = new int[n][];
+		cheapest = new double[n];
+		halfTwoCheapest = new double[n];
+		visited = new long[(n + 63) >>> 6];
+		path = new int[n];
+		bestPath = null;
+		bestCost = Double.POSITIVE_INFINITY;
+		primKey = new double[n];
+		inTree = new long[visited.length];
+		sinceCheck = 0;
+		// a node costs up to n^2 steps for the 1-tree bound, so large graphs check more often
+		checkInterval = (int)Math.max(1, CHECK_INTERVAL * 64L / ((long)n * n));
+
+		unvisitedHalfSum = 0;
+		for(int v = 0; v < n; v++)
+		{
+			// sorting every row takes n^2 log n steps, so large graphs can run out of time here
+			if(System.nanoTime() > deadline)
+			{
+				timedOut = true;
+				return;
+			}
+			order[v] = byCost(v);
+
+			// two cheapest edges to other vertices
+			double min1 = Double.POSITIVE_INFINITY, min2 = Double.POSITIVE_INFINITY;
+			for(int j : order[v])
+			{
+				if(j == v)
+					continue;
+				if(min1 == Double.POSITIVE_INFINITY)
+					min1 = dist[v * n + j];
+				else
+				{
+					min2 = dist[v * n + j];
+					break;
+				}
+			}
+			cheapest[v] = min1;
+			halfTwoCheapest[v] = (min1 + min2) / 2;
+			if(v != 0)
+				unvisitedHalfSum += halfTwoCheapest[v];
+		}
+
+		visited[0] = 1L;
+		path[0] = 0;
+	}
+
+	private void report()
+	{
+		if(listener == null)
+			return;
+		List<Vertex<E>> cycle = new ArrayList<>(n + 1);
+		for(int i = 0; i < n; i++)
+			cycle.add(snapshot.vertex(bestPath[i]));
+		cycle.add(snapshot.vertex(bestPath[0]));
+		listener.improved(Collections.unmodifiableList(cycle), bestCost);
+	}
+
+	// Neighbors of v ordered by increasing edge cost.
+	private int[] byCost(int v)
+	{
+		Integer[] adj = new Integer[n];
+		int count = 0;
+		for(int j = 0; j < n; j++)
+		{
+			if(dist[v * n + j] < Double.POSITIVE_INFINITY)
+				adj[count++] = j;
+		}
+		final int row = v * n;
+		Arrays.sort(adj, 0, count, (a, b) -> Double.compare(dist[row + a], dist[row + b]));
+
+		int[] result = new int[count];
+		for(int i = 0; i < count; i++)
+			result[i] = adj[i];
+		return result;
+	}
+
+	private void search(int currV, int depth, double pathCost)
+	{
+		++nodes;
+		counter.node(depth - 1);
+		if(++sinceCheck >= checkInterval)
+		{
+			sinceCheck = 0;
+			counter.flush();
+			if(System.nanoTime() > deadline)
+				timedOut = true;
+		}
+		if(timedOut)
+			return;
+
+		if(depth == n)
+		{
+			// every vertex is on the path, so close the circuit
+			double total = pathCost + dist[currV * n];
+			if(total < bestCost)
+			{
+				bestCost = total;
+				bestPath = path.clone();
+				report();
+			}
+			return;
+		}
+
+		for(int next : order[currV])
+		{
+			if((visited[next >>> 6] & (1L << next)) != 0)
+				continue;
+
+			double nextCost = pathCost + dist[currV * n + next];
+			if(nextCost >= bestCost)
+			{
+				counter.prune();
+				break; // the remaining neighbors cost even more
+			}
+
+			visited[next >>> 6] |= 1L << next;
+			unvisitedHalfSum -= halfTwoCheapest[next];
+			path[depth] = next;
+
+			double budget = bestCost - nextCost;
+			if(bound(next, depth + 1, budget) < budget)
+			{
+				search(next, depth + 1, nextCost);
+				counter.backtrack();
+			}
+			else
+				counter.prune();
+
+			visited[next >>> 6] &= ~(1L << next);
+			unvisitedHalfSum += halfTwoCheapest[next];
+			if(timedOut)
+				return;
+		}
+	}
+
+	// Lower bound on the cost of finishing the circuit from currV once depth vertices
+	// are on the path. The 1-tree bound is skipped when the cheaper bound exceeds budget.
+	private double bound(int currV, int depth, double budget)
+	{
+		if(depth == n)
+			return dist[currV * n];
+		if(n < 3)
+			return 0; // two city circuits reuse their single edge
+
+		double twoEdges = unvisitedHalfSum + (cheapest[currV] + cheapest[0]) / 2;
+		if(twoEdges >= budget)
+			return twoEdges;
+		return Math.max(twoEdges, oneTree(currV));
+	}
+
+	// Minimum spanning tree of the unvisited vertices plus the cheapest edges
+	// joining them to currV and to the start; infinite if they can't be joined.
+	private double oneTree(int currV)
+	{
+		int first = -1, remaining = 0;
+		double fromCurr = Double.POSITIVE_INFINITY, toStart = Double.POSITIVE_INFINITY;
+
+		System.arraycopy(visited, 0, inTree, 0, visited.length);
+		for(int v = 0; v < n; v++)
+		{
+			if((visited[v >>> 6] & (1L << v)) != 0)
+				continue;
+			primKey[v] = Double.POSITIVE_INFINITY;
+			fromCurr = Math.min(fromCurr, dist[currV * n + v]);
+			toStart = Math.min(toStart, dist[v * n]);
+			if(first < 0)
+				first = v;
+			++remaining;
+		}
+
+		double total = fromCurr + toStart;
+		if(total == Double.POSITIVE_INFINITY)
+			return total;
+
+		// Prim's algorithm over the unvisited vertices
+		int added = first;
+		primKey[first] = 0;
+		while(true)
+		{
+			inTree[added >>> 6] |= 1L << added;
+			total += primKey[added];
+			if(--remaining == 0)
+				return total;
+
+			int nextAdd = -1;
+			double nextKey = Double.POSITIVE_INFINITY;
+			for(int v = first; v < n; v++)
+			{
+				if((inTree[v >>> 6] & (1L << v)) != 0)
+					continue;
+				double c = dist[added * n + v];
+				if(c < primKey[v])
+					primKey[v] = c;
+				if(primKey[v] < nextKey)
+				{
+					nextKey = primKey[v];
+					nextAdd = v;
+				}
+			}
+			if(nextAdd < 0)
+				return Double.POSITIVE_INFINITY; // unvisited vertices are disconnected
+			added = nextAdd;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+import java.util.*;
+
+/**
+ *
+ * What the Hamiltonian circuit solvers share: solveHamil, which takes one
+ * snapshot of the graph (Graph.freeze) for the subclass's solve() to work on
+ * and reports the solve (SolveEvent), and the search statistics of the last
+ * solve, which can be pooled with other solvers' (see SolverMetrics).
+ *
+ */
+
+public abstract class CircuitSolver<E>
+{
+	private SolverMetrics sharedMetrics;
+
+	// statistics of the solve running or last run; null before the first
+	protected SolverMetrics metrics;
+
+	// Counts the next solves into metrics, e.g. one shared with other solvers,
+	// instead of a new SolverMetrics each; null to go back.
+	public void setMetrics(SolverMetrics metrics)
+	{
+		sharedMetrics = metrics;
+	}
+
+	// Search statistics of the last solve, or null before the first.
+	public SolverMetrics getMetrics()
+	{
+		return metrics;
+	}
+
+	// Adds a circuit of graph to cycleList, first vertex repeated at the end; false if none was found.
+	public boolean solveHamil(Graph<E> graph, List<Vertex<E>> cycleList)
+	{
+		return solveHamil(graph.freeze(), cycleList);
+	}
+
+	// solveHamil on a snapshot taken earlier, e.g. so several solvers search the same version of a graph
+	boolean solveHamil(CsrGraph<E> snapshot, List<Vertex<E>> cycleList)
+	{
+		metrics = sharedMetrics != null ? sharedMetrics : new SolverMetrics();
+		SolveEvent event = SolveEvent.start(getClass().getSimpleName());
+		boolean found = solve(snapshot, cycleList);
+		event.finish(metrics, snapshot.size(), found);
+		return found;
+	}
+
+	// The solve itself, counted into metrics.
+	abstract boolean solve(CsrGraph<E> snapshot, List<Vertex<E>> cycleList);
+}
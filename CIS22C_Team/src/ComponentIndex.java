@@ -0,0 +1,80 @@
+import java.util.*;
+
+/**
+ *
+ * Union-find over vertex ids: which vertices are joined by some path.
+ *
+ * Adding an edge merges two components in near-constant time. Removing an edge
+ * may split a component, which union-find can't undo; Graph then drops its index
+ * and rebuilds it from the adjacency lists on the next query.
+ *
+ */
+
+public class ComponentIndex
+{
+	private int[] parent = new int[16];
+	private int[] size = new int[16];
+	private int count;
+
+	// Makes id a component of its own; it must not be joined to anything yet.
+	public void add(int id)
+	{
+		if(id >= parent.length)
+		{
+			int capacity = Math.max(parent.length * 2, id + 1);
+			parent = Arrays.copyOf(parent, capacity);
+			size = Arrays.copyOf(size, capacity);
+		}
+		parent[id] = id;
+		size[id] = 1;
+		++count;
+	}
+
+	// Forgets the single-vertex component id.
+	public void removeSingleton(int id)
+	{
+		--count;
+	}
+
+	// Representative of id's component.
+	public int find(int id)
+	{
+		while(parent[id] != id)
+		{
+			parent[id] = parent[parent[id]]; // path halving
+			id = parent[id];
+		}
+		return id;
+	}
+
+	// Joins the components of a and b; false if they already were one.
+	public boolean union(int a, int b)
+	{
+		a = find(a);
+		b = find(b);
+		if(a == b)
+			return false;
+		if(size[a] < size[b])
+		{
+			int t = a;
+			a = b;
+			b = t;
+		}
+		parent[b] = a;
+		size[a] += size[b];
+		--count;
+		return true;
+	}
+
+	// Number of vertices in id's component.
+	public int size(int id)
+	{
+		return size[find(id)];
+	}
+
+	// Number of components.
+	public int count()
+	{
+		return count;
+	}
+}
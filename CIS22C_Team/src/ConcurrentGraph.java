@@ -0,0 +1,182 @@
+import java.util.*;
+
+/**
+ *
+ * Graph that many threads can search and traverse while others edit it.
+ *
+ * Edits and queries of the live graph take the graph's lock, one at a time.
+ * Solvers and traversals never touch the live graph: they work on the snapshot
+ * from freeze(), which is immutable (see CsrGraph). The current snapshot is
+ * published through a volatile field, so getting it takes no lock; only the
+ * first freeze() after an edit takes the lock to build a new one.
+ *
+ * So each solve or traversal sees the graph as it was at one moment (snapshot
+ * isolation), an edit never waits for a solve to finish, and a solve is never
+ * disturbed by an edit made while it runs. Its answer is for the version it
+ * started on; getVersion() tells whether that is still current.
+ *
+ * Vertex objects are shared between the live graph and its snapshots; read
+ * only their data and id outside the lock.
+ *
+ */
+
+public class ConcurrentGraph<E> extends Graph<E>
+{
+	// snapshot of the current version, or null after an edit until the next freeze()
+	private volatile CsrGraph<E> published;
+
+	public synchronized void addEdge(E source, E dest, double cost)
+	{
+		long before = version;
+		super.addEdge(source, dest, cost);
+		if(version != before)
+			published = null;
+	}
+
+	public synchronized void addEdgeById(int source, int dest, double cost)
+	{
+		long before = version;
+		super.addEdgeById(source, dest, cost);
+		if(version != before)
+			published = null;
+	}
+
+	public synchronized void addEdges(E[] names, int[] src, int[] dst, double[] cost, int count)
+	{
+		super.addEdges(names, src, dst, cost, count);
+		published = null;
+	}
+
+	public synchronized void addAdjacency(E[] names, int[] offsets, int[] targets, double[] weights)
+	{
+		super.addAdjacency(names, offsets, targets, weights);
+		published = null;
+	}
+
+	public synchronized Vertex<E> addToVertexSet(E x)
+	{
+		long before = version;
+		Vertex<E> vertex = super.addToVertexSet(x);
+		if(version != before)
+			published = null;
+		return vertex;
+	}
+
+	protected synchronized Vertex<E> addToVertexSet(int id)
+	{
+		long before = version;
+		Vertex<E> vertex = super.addToVertexSet(id);
+		if(version != before)
+			published = null;
+		return vertex;
+	}
+
+	public synchronized boolean remove(E start, E end)
+	{
+		boolean removed = super.remove(start, end);
+		if(removed)
+			published = null;
+		return removed;
+	}
+
+	public synchronized boolean removeById(int start, int end)
+	{
+		boolean removed = super.removeById(start, end);
+		if(removed)
+			published = null;
+		return removed;
+	}
+
+	public synchronized Vertex<E> removeVertex(E x)
+	{
+		Vertex<E> removed = super.removeVertex(x);
+		if(removed != null)
+			published = null;
+		return removed;
+	}
+
+	public synchronized Vertex<E> removeVertexById(int id)
+	{
+		Vertex<E> removed = super.removeVertexById(id);
+		if(removed != null)
+			published = null;
+		return removed;
+	}
+
+	public synchronized void clear()
+	{
+		super.clear();
+		published = null;
+	}
+
+	public synchronized int idOf(E x)
+	{
+		return super.idOf(x);
+	}
+
+	public synchronized Vertex<E> getVertex(int id)
+	{
+		return super.getVertex(id);
+	}
+
+	public synchronized long getVersion()
+	{
+		return super.getVersion();
+	}
+
+	public synchronized List<GraphEdit> editsSince(long since)
+	{
+		return super.editsSince(since);
+	}
+
+	public synchronized boolean connected(E a, E b)
+	{
+		return super.connected(a, b);
+	}
+
+	public synchronized boolean connectedById(int a, int b)
+	{
+		return super.connectedById(a, b);
+	}
+
+	public synchronized int componentSize(E x)
+	{
+		return super.componentSize(x);
+	}
+
+	public synchronized int componentCount()
+	{
+		return super.componentCount();
+	}
+
+	public synchronized void showAdjTable()
+	{
+		super.showAdjTable();
+	}
+
+	// Snapshot of the graph as of the last edit; lock-free unless it must be built.
+	public CsrGraph<E> freeze()
+	{
+		CsrGraph<E> snapshot = published;
+		if(snapshot != null)
+			return snapshot;
+		synchronized(this)
+		{
+			if(published == null)
+				published = super.freeze();
+			return published;
+		}
+	}
+
+	// The traversals run on the snapshot, so they hold no lock while visiting.
+
+	public void breadthFirstTraversal(E startElement, Visitor<E> visitor)
+	{
+		freeze().breadthFirstTraversal(startElement, visitor);
+	}
+
+	public void depthFirstTraversal(E startElement, Visitor<E> visitor)
+	{
+		freeze().depthFirstTraversal(startElement, visitor);
+	}
+}
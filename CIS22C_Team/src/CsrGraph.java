@@ -0,0 +1,197 @@
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ *
+ * Immutable compressed sparse row (CSR) snapshot of a Graph, made by Graph.freeze().
+ *
+ * Every vertex is interned to a dense int index (0 .. size-1). The neighbors of
+ * vertex v are targets[offsets[v]] .. targets[offsets[v + 1] - 1], with the matching
+ * edge costs at the same positions in weights, so an edge takes 12 bytes and the
+ * solvers' inner loops walk plain arrays.
+ *
+ * Index 0 is the first vertex of the graph's vertexSet and each neighbor range
+ * keeps the iteration order of the vertex's adjList, so searches and traversals
+ * over the snapshot visit vertices in the same order as they would on the graph.
+ *
+ * A snapshot keeps its own copy of the graph's edges and labels and reads
+ * nothing else of the graph after it is built, so it stays valid while the
+ * graph changes and can be searched and traversed by any number of threads at
+ * once. Only the vertices are shared: vertex() hands out the graph's own Vertex
+ * objects, whose data and id never change but whose adjList is the live one.
+ *
+ */
+
+public class CsrGraph<E>
+{
+	final int[] offsets;
+	final int[] targets;
+	final double[] weights;
+	private final Vertex<E>[] vertices;
+	private final SymbolTable<E> symbols;
+	private final int[] indexOfId;
+	private final AtomicReference<Traverser<E>> spareTraverser = new AtomicReference<>();
+
+	@SuppressWarnings("unchecked")
+	CsrGraph(Graph<E> graph)
+	{
+		int size = graph.vertexSet.size();
+		vertices = (Vertex<E>[]) new Vertex<?>[size];
+
+		// snapshot index of each vertex id, -1 for ids no longer in the graph
+		symbols = graph.symbols.copy();
+		indexOfId = new int[symbols.size()];
+		Arrays.fill(indexOfId, -1);
+
+		int next = 0, edges = 0;
+		for(Vertex<E> v : graph.vertexSet.values())
+		{
+			indexOfId[v.id] = next;
+			vertices[next++] = v;
+			edges += v.adjList.size();
+		}
+
+		offsets = new int[size + 1];
+		int[] adj = new int[edges];
+		double[] cst = new double[edges];
+		int count = 0;
+
+		for(int i = 0; i < size; i++)
+		{
+			offsets[i] = count;
+			AdjacencyMap<E> adjList = vertices[i].adjList;
+			for(int k = 0; k < adjList.size(); k++)
+			{
+				int j = indexOfId[adjList.idAt(k)];
+				if(j < 0)
+					continue; // neighbor is no longer part of the graph
+				adj[count] = j;
+				cst[count++] = adjList.costAt(k);
+			}
+		}
+		offsets[size] = count;
+		targets = count == edges ? adj : Arrays.copyOf(adj, count);
+		weights = count == edges ? cst : Arrays.copyOf(cst, count);
+	}
+
+	// Number of vertices.
+	public int size()
+	{
+		return vertices.length;
+	}
+
+	// Number of directed adjacency entries (twice the number of undirected edges).
+	public int edgeCount()
+	{
+		return targets.length;
+	}
+
+	public int degree(int v)
+	{
+		return offsets[v + 1] - offsets[v];
+	}
+
+	public E label(int v)
+	{
+		return vertices[v].data;
+	}
+
+	// The graph's vertex for index v. Its data and id are stable; its adjList is the
+	// graph's current one, not the snapshot's, so use the snapshot's edges instead.
+	public Vertex<E> vertex(int v)
+	{
+		return vertices[v];
+	}
+
+	// Index of the vertex holding x, or -1 if there is none.
+	public int indexOf(E x)
+	{
+		return indexOfId(symbols.lookup(x));
+	}
+
+	// Index of the vertex with this graph id, or -1 if it wasn't in the graph.
+	public int indexOfId(int id)
+	{
+		return id >= 0 && id < indexOfId.length ? indexOfId[id] : -1;
+	}
+
+	public boolean hasEdge(int u, int v)
+	{
+		return cost(u, v) != Double.POSITIVE_INFINITY;
+	}
+
+	// Cost of the edge from u to v, or infinity if there is none.
+	public double cost(int u, int v)
+	{
+		for(int e = offsets[u]; e < offsets[u + 1]; e++)
+		{
+			if(targets[e] == v)
+				return weights[e];
+		}
+		return Double.POSITIVE_INFINITY;
+	}
+
+	// Flat size*size cost matrix with infinity where there is no edge.
+	// The array may be shared with the snapshot, so callers must not modify it.
+	public double[] costMatrix()
+	{
+		int n = size();
+		double[] dist = new double[n * n];
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+
+		for(int i = 0; i < n; i++)
+		{
+			for(int e = offsets[i]; e < offsets[i + 1]; e++)
+				dist[i * n + targets[e]] = weights[e];
+		}
+		return dist;
+	}
+
+	// New traversal state for this snapshot, for one thread's traversals.
+	public Traverser<E> traverser()
+	{
+		return new Traverser<E>(this);
+	}
+
+	/** Breadth-first traversal from the parameter startElement*/
+	public void breadthFirstTraversal(E startElement, Visitor<E> visitor)
+	{
+		int start = indexOf(startElement);
+		if(start < 0)
+			return;
+		Traverser<E> traverser = borrowTraverser();
+		try
+		{
+			traverser.breadthFirstTraversal(start, visitor);
+		}
+		finally
+		{
+			spareTraverser.set(traverser);
+		}
+	}
+
+	/** Depth-first traversal from the parameter startElement */
+	public void depthFirstTraversal(E startElement, Visitor<E> visitor)
+	{
+		int start = indexOf(startElement);
+		if(start < 0)
+			return;
+		Traverser<E> traverser = borrowTraverser();
+		try
+		{
+			traverser.depthFirstTraversal(start, visitor);
+		}
+		finally
+		{
+			spareTraverser.set(traverser);
+		}
+	}
+
+	// The snapshot keeps one spare Traverser, so one thread's traversals allocate
+	// nothing after the first; threads traversing at the same time get their own.
+	private Traverser<E> borrowTraverser()
+	{
+		Traverser<E> traverser = spareTraverser.getAndSet(null);
+		return traverser != null ? traverser : new Traverser<E>(this);
+	}
+}
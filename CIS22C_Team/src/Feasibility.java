@@ -0,0 +1,186 @@
+import java.util.*;
+
+/**
+ *
+ * Linear-time tests that rule out a Hamiltonian circuit before any search starts.
+ *
+ * A graph of three or more cities has no circuit if:
+ *
+ *   - some city has fewer than two roads (a circuit enters and leaves every city),
+ *   - it is disconnected,
+ *   - it has an articulation point, a city whose removal disconnects it (the
+ *     circuit would have to pass through it twice); this covers bridges too,
+ *   - its roads only join two groups of cities of different sizes (the circuit
+ *     alternates between the groups).
+ *
+ * Passing every test does not mean there is a circuit. Graphs of one or two
+ * cities are left to the solvers.
+ *
+ */
+
+public class Feasibility
+{
+	// Why graph can't have a Hamiltonian circuit, or null if these tests can't tell.
+	public static String check(CsrGraph<?> graph)
+	{
+		int n = graph.size();
+		if(n < 3)
+			return null;
+
+		String reason = checkDegrees(graph);
+		if(reason == null)
+			reason = checkBiconnected(graph);
+		if(reason == null)
+			reason = checkBipartite(graph);
+		return reason;
+	}
+
+	private static String checkDegrees(CsrGraph<?> graph)
+	{
+		int[] offsets = graph.offsets, targets = graph.targets;
+		for(int v = 0; v < graph.size(); v++)
+		{
+			int roads = 0;
+			for(int e = offsets[v]; e < offsets[v + 1] && roads < 2; e++)
+			{
+				if(targets[e] != v)
+					++roads;
+			}
+			if(roads < 2)
+				return graph.label(v) + (roads == 0 ? " has no roads to other cities." : " has only one road; a circuit needs two.");
+		}
+		return null;
+	}
+
+	// Depth-first search keeping Tarjan's low points; finds unreachable cities and articulation points.
+	private static String checkBiconnected(CsrGraph<?> graph)
+	{
+		int n = graph.size();
+		int[] offsets = graph.offsets, targets = graph.targets;
+		int[] disc = new int[n];    // discovery time, 0 while unvisited
+		int[] low = new int[n];
+		int[] parent = new int[n];
+		int[] stack = new int[n];
+		int[] cursor = new int[n];
+		int time = 0, top = 0, rootChildren = 0;
+
+		disc[0] = low[0] = ++time;
+		parent[0] = -1;
+		stack[0] = 0;
+		cursor[0] = offsets[0];
+		while(top >= 0)
+		{
+			int v = stack[top];
+			if(cursor[top] < offsets[v + 1])
+			{
+				int w = targets[cursor[top]++];
+				if(disc[w] == 0)
+				{
+					disc[w] = low[w] = ++time;
+					parent[w] = v;
+					if(v == 0)
+						++rootChildren;
+					stack[++top] = w;
+					cursor[top] = offsets[w];
+				}
+				else if(w != parent[v])
+					low[v] = Math.min(low[v], disc[w]);
+				continue;
+			}
+
+			--top;
+			int p = parent[v];
+			if(p >= 0)
+			{
+				low[p] = Math.min(low[p], low[v]);
+				if(p != 0 && low[v] >= disc[p])
+					return articulation(graph, p);
+			}
+		}
+
+		for(int v = 0; v < n; v++)
+		{
+			if(disc[v] == 0)
+				return "The cities form " + components(graph, disc) + " separate groups with no roads between them.";
+		}
+		if(rootChildren > 1)
+			return articulation(graph, 0);
+		return null;
+	}
+
+	// Connected components of graph, given the search from vertex 0 that left the
+	// rest with seen[v] == 0; marks every vertex seen.
+	private static int components(CsrGraph<?> graph, int[] seen)
+	{
+		int n = graph.size();
+		int[] offsets = graph.offsets, targets = graph.targets;
+		int[] stack = new int[n];
+		int count = 1;
+		for(int s = 0; s < n; s++)
+		{
+			if(seen[s] != 0)
+				continue;
+			++count;
+			int top = 0;
+			stack[0] = s;
+			seen[s] = 1;
+			while(top >= 0)
+			{
+				int v = stack[top--];
+				for(int e = offsets[v]; e < offsets[v + 1]; e++)
+				{
+					if(seen[targets[e]] == 0)
+					{
+						seen[targets[e]] = 1;
+						stack[++top] = targets[e];
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	private static String articulation(CsrGraph<?> graph, int v)
+	{
+		return "Every route between the cities on either side of " + graph.label(v)
+				+ " passes through it, so a circuit would have to visit it twice.";
+	}
+
+	private static String checkBipartite(CsrGraph<?> graph)
+	{
+		int n = graph.size();
+		int[] offsets = graph.offsets, targets = graph.targets;
+		byte[] side = new byte[n]; // 0 unseen, else 1 or 2
+		int[] queue = new int[n];
+		int[] count = new int[3];
+		int head = 0, tail = 0;
+
+		// the graph is connected by now, so one search colors it all
+		side[0] = 1;
+		++count[1];
+		queue[tail++] = 0;
+		while(head < tail)
+		{
+			int v = queue[head++];
+			for(int e = offsets[v]; e < offsets[v + 1]; e++)
+			{
+				int w = targets[e];
+				if(w == v)
+					continue; // no circuit of three or more cities uses a loop
+				if(side[w] == side[v])
+					return null; // an odd cycle, so not bipartite
+				if(side[w] == 0)
+				{
+					side[w] = (byte)(3 - side[v]);
+					++count[side[w]];
+					queue[tail++] = w;
+				}
+			}
+		}
+
+		if(count[1] == count[2])
+			return null;
+		return "Every road joins a city of one group to a city of the other (" + count[1] + " and " + count[2]
+				+ " cities); a circuit alternates between them, so the groups would need the same size.";
+	}
+}
@@ -16,40 +16,43 @@ interface Visitor<T>
 class Vertex<E>
 {
 	public static final double INFINITY = Double.MAX_VALUE;
-	public HashMap<E, Pair<Vertex<E>, Double>> adjList = new HashMap<E, Pair<Vertex<E>, Double>>();
+	public AdjacencyMap<E> adjList = new AdjacencyMap<E>();
 	public E data;
-	public boolean visited;
+	public int id; // key in the adjacency lists, assigned by the graph
 
-	public Vertex( E x )
+	public Vertex( E x, int id )
 	{
 		data = x;
+		this.id = id;
 	}
 
+	public Vertex( E x ) { this(x, -1); }
+
 	public Vertex() { this(null); }
 
 	public E getData(){ return data; }
 
-	public boolean isVisited(){ return visited; }
-
-	public void visit(){ visited = true; }
-
-	public void unvisit(){ visited = false; }
+	public boolean isAdjacent(Vertex<E> neighbor)
+	{
+		return adjList.containsKey(neighbor.id);
+	}
 
-	public Iterator<Map.Entry<E, Pair<Vertex<E>, Double>>> iterator()
+	// cost of the edge to neighbor, or NaN if they aren't adjacent
+	public double getCost(Vertex<E> neighbor)
 	{
-		return adjList.entrySet().iterator();
+		return adjList.get(neighbor.id);
 	}
 
-	public void addToAdjList(Vertex<E> neighbor, double cost)
+	// false, leaving the cost as it was, if neighbor was already in the list
+	public boolean addToAdjList(Vertex<E> neighbor, double cost)
 	{
-		if( adjList.get(neighbor.data) == null)
-			adjList.put(neighbor.data, new Pair<Vertex<E>, Double> (neighbor, cost));
 		// Note: if you want to change the cost, you'll need to remove it and then add it back
+		return adjList.put(neighbor, cost);
 	}
 
-	public void addToAdjList(Vertex<E> neighbor, int cost)
+	public boolean addToAdjList(Vertex<E> neighbor, int cost)
 	{
-		addToAdjList( neighbor, (double)cost );
+		return addToAdjList( neighbor, (double)cost );
 	}
 
 	public boolean equals(Object rhs)
@@ -68,17 +71,10 @@ class Vertex<E>
 
 	public void showAdjList()
 	{
-		Iterator<Entry<E, Pair<Vertex<E>, Double>>> iter ;
-		Entry<E, Pair<Vertex<E>, Double>> entry;
-		Pair<Vertex<E>, Double> pair;
-
 		System.out.print( "Adj List for " + data + ": ");
-		iter = adjList.entrySet().iterator();
-		while( iter.hasNext() )
+		for( int i = 0; i < adjList.size(); i++ )
 		{
-			entry = iter.next();
-			pair = entry.getValue();
-			System.out.print( pair.first.data + "(" + String.format("%3.1f", pair.second) + ") " );
+			System.out.print( adjList.vertexAt(i).data + "(" + String.format("%3.1f", adjList.costAt(i)) + ") " );
 		}
 		System.out.println();
 	}
@@ -87,16 +83,45 @@ class Vertex<E>
 //--- Graph class ------------------------------------------------------
 public class Graph<E>
 {
+	// snapshots with at least this share of all possible edges use a cost matrix
+	public static final double DENSE_THRESHOLD = 0.5;
+
 	// the graph data is all here --------------------------
 	protected HashMap<E, Vertex<E> > vertexSet;
 
+	// labels interned to int ids, and the vertex for each id (null if removed)
+	protected SymbolTable<E> symbols;
+	private Vertex<E>[] byId;
+
+	// bumped on every change, so a cached snapshot is only reused while current
+	protected long version;
+
+	// the last EDIT_LOG_SIZE changes; version v's change is at v % EDIT_LOG_SIZE
+	private static final int EDIT_LOG_SIZE = 64;
+	private GraphEdit[] edits = new GraphEdit[EDIT_LOG_SIZE];
+	private CsrGraph<E> frozen;
+	private long frozenVersion;
+
+	// connected components, kept up to date as edges are added; null once a
+	// removal may have split one, until the next query rebuilds it
+	private ComponentIndex components;
+
 	// public graph methods --------------------------------
 	public Graph ()
 	{
 		vertexSet = new HashMap<E, Vertex<E> >();
+		symbols = new SymbolTable<E>();
+		byId = newVertexArray(16);
+		components = new ComponentIndex();
 	}
 
 	public void addEdge(E source, E dest, double cost)
+	{
+		addEdgeById(symbols.intern(source), symbols.intern(dest), cost);
+	}
+
+	// addEdge for vertices already known by id (see idOf); a removed vertex is re-added
+	public void addEdgeById(int source, int dest, double cost)
 	{
 		Vertex<E> src, dst;
 
@@ -105,8 +130,13 @@ public class Graph<E>
 		dst = addToVertexSet(dest);
 
 		// add dest to source's adjacency list
-		src.addToAdjList(dst, cost);
-		dst.addToAdjList(src, cost); // ADD THIS IF UNDIRECTED GRAPH
+		boolean addedOK = src.addToAdjList(dst, cost);
+		addedOK = dst.addToAdjList(src, cost) || addedOK; // ADD THIS IF UNDIRECTED GRAPH
+		if(!addedOK)
+			return; // the edge was already there, so nothing changed
+		if(components != null)
+			components.union(source, dest);
+		changed(GraphEdit.Kind.EDGE_ADDED, source, dest);
 	}
 
 	public void addEdge(E source, E dest, int cost)
@@ -114,14 +144,77 @@ public class Graph<E>
 		addEdge(source, dest, (double)cost);
 	}
 
+	// bulk version of addEdge for loaders: edge i joins names[src[i]] and
+	// names[dst[i]] with cost[i]; adjacency lists are sized once up front
+	public void addEdges(E[] names, int[] src, int[] dst, double[] cost, int count)
+	{
+		int[] degree = new int[names.length];
+		for(int i = 0; i < count; i++)
+		{
+			++degree[src[i]];
+			++degree[dst[i]];
+		}
+
+		Vertex<E>[] vertices = newVertexArray(names.length);
+		for(int n = 0; n < names.length; n++)
+		{
+			if(degree[n] == 0)
+				continue;
+			vertices[n] = addToVertexSet(names[n]);
+			if(vertices[n].adjList.isEmpty())
+				vertices[n].adjList = new AdjacencyMap<E>(degree[n]);
+		}
+
+		for(int i = 0; i < count; i++)
+		{
+			vertices[src[i]].addToAdjList(vertices[dst[i]], cost[i]);
+			vertices[dst[i]].addToAdjList(vertices[src[i]], cost[i]);
+			if(components != null)
+				components.union(vertices[src[i]].id, vertices[dst[i]].id);
+		}
+		changed(GraphEdit.Kind.BULK_CHANGE, -1, -1);
+	}
+
+	// bulk load of adjacency in CSR form (see CsrGraph): vertex v holds names[v]
+	// and its neighbors are targets[offsets[v]] .. targets[offsets[v + 1] - 1]
+	public void addAdjacency(E[] names, int[] offsets, int[] targets, double[] weights)
+	{
+		Vertex<E>[] vertices = newVertexArray(names.length);
+		for(int v = 0; v < names.length; v++)
+		{
+			vertices[v] = addToVertexSet(names[v]);
+			if(vertices[v].adjList.isEmpty())
+				vertices[v].adjList = new AdjacencyMap<E>(offsets[v + 1] - offsets[v]);
+		}
+
+		for(int v = 0; v < names.length; v++)
+		{
+			for(int e = offsets[v]; e < offsets[v + 1]; e++)
+			{
+				vertices[v].addToAdjList(vertices[targets[e]], weights[e]);
+				if(components != null)
+					components.union(vertices[v].id, vertices[targets[e]].id);
+			}
+		}
+		changed(GraphEdit.Kind.BULK_CHANGE, -1, -1);
+	}
+
 	// adds vertex with x in it, and always returns ref to it
 	public Vertex<E> addToVertexSet(E x)
+	{
+		return addToVertexSet(symbols.intern(x));
+	}
+
+	// adds vertex with this id, and always returns ref to it
+	protected Vertex<E> addToVertexSet(int id)
 	{
 		Vertex<E> retVal=null;
 		Vertex<E> foundVertex;
 
 		// find if Vertex already in the list:
-		foundVertex = vertexSet.get(x);
+		if(id >= byId.length)
+			byId = Arrays.copyOf(byId, Math.max(byId.length * 2, id + 1));
+		foundVertex = byId[id];
 
 		if (foundVertex != null) // found it, so return it
 		{
@@ -129,33 +222,76 @@ public class Graph<E>
 		}
 
 		// the vertex not there, so create one
-		retVal = new Vertex<E>(x);
-		vertexSet.put(x, retVal);
+		retVal = new Vertex<E>(symbols.label(id), id);
+		byId[id] = retVal;
+		vertexSet.put(retVal.data, retVal);
+		if(components != null)
+			components.add(id);
+		changed(GraphEdit.Kind.VERTEX_ADDED, id, -1);
 
 		return retVal;   // should never happen
 	}
 
+	// id of the label x, or -1 if x was never part of the graph
+	public int idOf(E x)
+	{
+		return symbols.lookup(x);
+	}
+
+	// vertex with this id, or null if it isn't in the graph
+	public Vertex<E> getVertex(int id)
+	{
+		return id >= 0 && id < byId.length ? byId[id] : null;
+	}
+
 	public boolean remove(E start, E end)
 	{
-		Vertex<E> startVertex = vertexSet.get(start);
+		return removeById(symbols.lookup(start), symbols.lookup(end));
+	}
+
+	// remove for vertices known by id (see idOf)
+	public boolean removeById(int start, int end)
+	{
+		Vertex<E> startVertex = getVertex(start);
+		Vertex<E> endVertex = getVertex(end);
 		boolean removedOK = false;
 
-		if(startVertex != null)
+		if(startVertex != null && endVertex != null)
 		{
-			Pair<Vertex<E>, Double> endPair = startVertex.adjList.remove(end);
-			removedOK = endPair != null;
+			removedOK = startVertex.adjList.remove(endVertex.id);
+			removedOK = endVertex.adjList.remove(startVertex.id) || removedOK;
 		}
-		
-		Vertex<E> endVertex = vertexSet.get(end);
-		if(endVertex != null)
+		if(removedOK)
 		{
-			Pair<Vertex<E>, Double> startPair = endVertex.adjList.remove(start);
-			removedOK = startPair != null;
+			components = null; // the component may have split
+			changed(GraphEdit.Kind.EDGE_REMOVED, start, end);
 		}
-
 		return removedOK;
 	}
 
+	// removes the vertex holding x; its edges must already be removed
+	public Vertex<E> removeVertex(E x)
+	{
+		return removeVertexById(symbols.lookup(x));
+	}
+
+	// removeVertex for a vertex known by id; its id stays reserved for its label
+	public Vertex<E> removeVertexById(int id)
+	{
+		Vertex<E> removed = getVertex(id);
+		if(removed != null)
+		{
+			byId[id] = null;
+			vertexSet.remove(removed.data);
+			if(components != null && removed.adjList.isEmpty())
+				components.removeSingleton(id);
+			else
+				components = null;
+			changed(GraphEdit.Kind.VERTEX_REMOVED, id, -1);
+		}
+		return removed;
+	}
+
 	public void showAdjTable()
 	{
 		Iterator<Entry<E, Vertex<E>>> iter;
@@ -173,81 +309,118 @@ public class Graph<E>
 	public void clear()
 	{
 		vertexSet.clear();
+		symbols = new SymbolTable<E>();
+		byId = newVertexArray(16);
+		components = new ComponentIndex();
+		changed(GraphEdit.Kind.BULK_CHANGE, -1, -1);
 	}
 
-	// reset all vertices to unvisited
-	public void unvisitVertices()
+	// changes so far; any change makes it larger
+	public long getVersion()
 	{
-		Iterator<Entry<E, Vertex<E>>> iter;
+		return version;
+	}
 
-		iter = vertexSet.entrySet().iterator();
-		while( iter.hasNext() )
-		{
-			iter.next().getValue().unvisit();
-		}
+	// the changes made after the given version, oldest first, or null if they
+	// are no longer all in the log
+	public List<GraphEdit> editsSince(long since)
+	{
+		if(since > version || version - since > EDIT_LOG_SIZE)
+			return null;
+		List<GraphEdit> result = new ArrayList<>((int)(version - since));
+		for(long v = since + 1; v <= version; v++)
+			result.add(edits[(int)(v % EDIT_LOG_SIZE)]);
+		return result;
 	}
 
-	/** Breadth-first traversal from the parameter startElement*/
-	public void breadthFirstTraversal(E startElement, Visitor<E> visitor)
+	private void changed(GraphEdit.Kind kind, int source, int dest)
 	{
-		unvisitVertices();
+		++version;
+		edits[(int)(version % EDIT_LOG_SIZE)] = new GraphEdit(kind, source, dest);
+	}
 
-		Vertex<E> startVertex = vertexSet.get(startElement);
-		breadthFirstTraversalHelper( startVertex, visitor );
+	// true if a and b are both in the graph and some path joins them
+	public boolean connected(E a, E b)
+	{
+		return connectedById(symbols.lookup(a), symbols.lookup(b));
 	}
 
-	/** Depth-first traversal from the parameter startElement */
-	public void depthFirstTraversal(E startElement, Visitor<E> visitor)
+	// connected for vertices known by id (see idOf)
+	public boolean connectedById(int a, int b)
 	{
-		unvisitVertices();
+		if(getVertex(a) == null || getVertex(b) == null)
+			return false;
+		ComponentIndex index = components();
+		return index.find(a) == index.find(b);
+	}
 
-		Vertex<E> startVertex = vertexSet.get(startElement);
-		depthFirstTraversalHelper( startVertex, visitor );
+	// number of vertices in x's connected component, 0 if x isn't in the graph
+	public int componentSize(E x)
+	{
+		int id = symbols.lookup(x);
+		return getVertex(id) == null ? 0 : components().size(id);
 	}
 
-	protected void breadthFirstTraversalHelper(Vertex<E> startVertex, Visitor<E> visitor)
+	// number of connected components
+	public int componentCount()
 	{
-		LinkedQueue<Vertex<E>> vertexQueue = new LinkedQueue<>();
-		E startData = startVertex.getData();
+		return components().count();
+	}
 
-		startVertex.visit();
-		visitor.visit(startData);
-		vertexQueue.enqueue(startVertex);
-		while( !vertexQueue.isEmpty() )
+	// the component index, rebuilt from the adjacency lists if a removal dropped it
+	private ComponentIndex components()
+	{
+		if(components == null)
 		{
-			Vertex<E> nextVertex = vertexQueue.dequeue();
-			Iterator<Map.Entry<E, Pair<Vertex<E>, Double>>> iter = nextVertex.iterator(); // iterate adjacency list
-
-			while( iter.hasNext() )
+			components = new ComponentIndex();
+			for(Vertex<E> v : vertexSet.values())
+				components.add(v.id);
+			for(Vertex<E> v : vertexSet.values())
 			{
-				Entry<E, Pair<Vertex<E>, Double>> nextEntry = iter.next();
-				Vertex<E> neighborVertex = nextEntry.getValue().first;
-				if( !neighborVertex.isVisited() )
-				{
-					vertexQueue.enqueue(neighborVertex);
-					neighborVertex.visit();
-					visitor.visit(neighborVertex.getData());
-				}
+				for(int i = 0; i < v.adjList.size(); i++)
+					components.union(v.id, v.adjList.idAt(i));
 			}
 		}
-	} // end breadthFirstTraversalHelper
+		return components;
+	}
 
-	public void depthFirstTraversalHelper(Vertex<E> startVertex, Visitor<E> visitor)
+	// immutable snapshot of the graph for the solvers, rebuilt only after a change;
+	// dense graphs get a cost matrix on top of the compressed (CSR) adjacency
+	public CsrGraph<E> freeze()
 	{
-		E startData = startVertex.getData();
-
-		startVertex.visit();
-		visitor.visit(startData);
-		
-		Iterator<Map.Entry<E, Pair<Vertex<E>, Double>>> iter = startVertex.iterator();
-		while(iter.hasNext())
+		if(frozen == null || frozenVersion != version)
 		{
-			Entry<E, Pair<Vertex<E>, Double>> nextEntry = iter.next();
-			Vertex<E> neighborVertex = nextEntry.getValue().first;
-			if(!neighborVertex.isVisited())
-			{
-				depthFirstTraversalHelper(neighborVertex, visitor);
-			}
+			int n = vertexSet.size();
+			long edges = 0;
+			for(Vertex<E> v : vertexSet.values())
+				edges += v.adjList.size();
+
+			if(n > 0 && n <= MatrixGraph.MAX_VERTICES && edges >= DENSE_THRESHOLD * n * n)
+				frozen = new MatrixGraph<E>(this);
+			else
+				frozen = new CsrGraph<E>(this);
+			frozenVersion = version;
 		}
+		return frozen;
+	}
+
+	/** Breadth-first traversal from the parameter startElement.
+	    Runs on the cached snapshot, so repeated traversals allocate nothing. */
+	public void breadthFirstTraversal(E startElement, Visitor<E> visitor)
+	{
+		freeze().breadthFirstTraversal(startElement, visitor);
+	}
+
+	/** Depth-first traversal from the parameter startElement.
+	    Runs on the cached snapshot, so repeated traversals allocate nothing. */
+	public void depthFirstTraversal(E startElement, Visitor<E> visitor)
+	{
+		freeze().depthFirstTraversal(startElement, visitor);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E> Vertex<E>[] newVertexArray(int size)
+	{
+		return (Vertex<E>[]) new Vertex<?>[size];
 	}
 }
@@ -0,0 +1,28 @@
+/**
+ *
+ * One change to a Graph, as kept in its edit log (see Graph.editsSince), so that
+ * results computed for an earlier version can be checked against what changed
+ * instead of being thrown away.
+ *
+ */
+
+public class GraphEdit
+{
+	public enum Kind { EDGE_ADDED, EDGE_REMOVED, VERTEX_ADDED, VERTEX_REMOVED, BULK_CHANGE }
+
+	public final Kind kind;
+	public final int source; // vertex id; -1 for a bulk change
+	public final int dest;   // other end of an edge, else -1
+
+	GraphEdit(Kind kind, int source, int dest)
+	{
+		this.kind = kind;
+		this.source = source;
+		this.dest = dest;
+	}
+
+	public String toString()
+	{
+		return kind + (source >= 0 ? " " + source : "") + (dest >= 0 ? " " + dest : "");
+	}
+}
@@ -0,0 +1,347 @@
+import java.util.*;
+
+/**
+ *
+ * Every version a graph has been through since it was attached, for undo, redo
+ * and what-if solves on earlier versions.
+ *
+ * Edits go through the history, which applies them to the graph and records
+ * the result as a new Version. Versions are immutable and share everything an
+ * edit didn't touch with the version before (see PersistentIntMap), so keeping
+ * all of them is cheap, and any of them can be handed to another thread to
+ * solve (Version.toGraph) while editing goes on.
+ *
+ * Versions form a tree: undoing and then editing starts a branch and leaves the
+ * undone versions in place, where restore() can still return to them. Moving
+ * between versions updates the graph one edit at a time, undoing back to the
+ * version both share and redoing forward from it, and puts back any cities an
+ * edit removed along with their last path.
+ *
+ * The graph must not be edited except through its history while attached.
+ * Each edit, undo, redo and restore changes the graph under the graph's own
+ * lock, the one ConcurrentGraph's methods take, so on a ConcurrentGraph other
+ * threads never see a snapshot between the steps of one: every snapshot they
+ * take is of a recorded version.
+ *
+ */
+
+public class GraphHistory<E>
+{
+	private final Graph<E> graph;
+	private final List<Version<E>> versions = new ArrayList<>();
+	private Version<E> current;
+
+	// Attaches to graph; its current state becomes version 0.
+	public GraphHistory(Graph<E> graph)
+	{
+		this.graph = graph;
+		CsrGraph<E> snapshot = graph.freeze();
+		PersistentIntMap<City<E>> cities = PersistentIntMap.empty();
+		int edges = 0;
+		for(int v = 0; v < snapshot.size(); v++)
+		{
+			PersistentIntMap<Double> roads = PersistentIntMap.empty();
+			for(int e = snapshot.offsets[v]; e < snapshot.offsets[v + 1]; e++)
+			{
+				int neighbor = snapshot.targets[e];
+				roads = roads.put(snapshot.vertex(neighbor).id, snapshot.weights[e]);
+				if(neighbor >= v)
+					++edges;
+			}
+			Vertex<E> vertex = snapshot.vertex(v);
+			cities = cities.put(vertex.id, new City<E>(vertex.data, roads));
+		}
+		current = record(null, "Loaded graph", -1, -1, cities, edges);
+	}
+
+	public synchronized Version<E> current()
+	{
+		return current;
+	}
+
+	// All versions so far, oldest first.
+	public synchronized List<Version<E>> versions()
+	{
+		return new ArrayList<>(versions);
+	}
+
+	public synchronized boolean canUndo()
+	{
+		return current.parent != null;
+	}
+
+	public synchronized boolean canRedo()
+	{
+		return current.redo != null;
+	}
+
+	// Graph.addEdge as a new version; false, with nothing recorded, if the path was already there.
+	public synchronized boolean addEdge(E source, E dest, double cost)
+	{
+		int a, b;
+		synchronized(graph)
+		{
+			a = graph.symbols.intern(source); // ConcurrentGraph copies symbols under this lock
+			b = graph.symbols.intern(dest);
+		}
+		if(current.cost(a, b) != null)
+			return false;
+
+		PersistentIntMap<City<E>> cities = current.cities;
+		cities = cities.put(a, city(cities, a, source).with(b, cost));
+		cities = cities.put(b, city(cities, b, dest).with(a, cost));
+		current = record(current, "Added path " + source + " - " + dest + " (" + cost + ")", a, b, cities, current.edges + 1);
+		sync(current);
+		return true;
+	}
+
+	// Graph.remove as a new version; either city is removed too if this was its
+	// last path. False, with nothing recorded, if there was no such path.
+	public synchronized boolean removeEdge(E source, E dest)
+	{
+		int a = graph.idOf(source), b = graph.idOf(dest);
+		if(a < 0 || b < 0 || current.cost(a, b) == null)
+			return false;
+
+		PersistentIntMap<City<E>> cities = current.cities;
+		City<E> from = cities.get(a).without(b);
+		cities = from.roads.isEmpty() ? cities.remove(a) : cities.put(a, from);
+		if(a != b)
+		{
+			City<E> to = cities.get(b).without(a);
+			cities = to.roads.isEmpty() ? cities.remove(b) : cities.put(b, to);
+		}
+		current = record(current, "Removed path " + source + " - " + dest, a, b, cities, current.edges - 1);
+		sync(current);
+		return true;
+	}
+
+	// Back to the version before the last edit; false if there is none.
+	public synchronized boolean undo()
+	{
+		if(current.parent == null)
+			return false;
+		Version<E> undone = current;
+		current = current.parent;
+		sync(undone);
+		current.redo = undone;
+		return true;
+	}
+
+	// Forward again to the version the last undo left; false if there is none.
+	public synchronized boolean redo()
+	{
+		if(current.redo == null)
+			return false;
+		current = current.redo;
+		sync(current);
+		return true;
+	}
+
+	// Makes version, which must be from this history, current again and brings
+	// the graph back to it. Editing from there starts a new branch.
+	public synchronized void restore(Version<E> version)
+	{
+		if(version.history != this)
+			throw new IllegalArgumentException("Version " + version.number + " belongs to another graph's history.");
+
+		// undo up to the version both share, then redo down to version, all
+		// under the graph's lock so nobody sees the versions in between
+		synchronized(graph)
+		{
+			Deque<Version<E>> forward = new ArrayDeque<>();
+			Version<E> down = version;
+			while(down.depth > current.depth)
+			{
+				forward.push(down);
+				down = down.parent;
+			}
+			while(current.depth > down.depth)
+				undo();
+			while(current != down)
+			{
+				forward.push(down);
+				down = down.parent;
+				undo();
+			}
+			while(!forward.isEmpty())
+			{
+				current.redo = forward.pop();
+				redo();
+			}
+		}
+	}
+
+	private Version<E> record(Version<E> parent, String description, int a, int b, PersistentIntMap<City<E>> cities, int edges)
+	{
+		Version<E> version = new Version<>(this, versions.size(), parent, description, a, b, cities, edges);
+		versions.add(version);
+		if(parent != null)
+			parent.redo = version;
+		return version;
+	}
+
+	// city with id in cities, or a new one with label and no paths
+	private static <E> City<E> city(PersistentIntMap<City<E>> cities, int id, E label)
+	{
+		City<E> city = cities.get(id);
+		return city != null ? city : new City<E>(label, PersistentIntMap.<Double>empty());
+	}
+
+	// Brings the graph to current, which differs from its state only in the edit
+	// that made (or was undone to leave) changed: the path between changed.a and
+	// changed.b and whether those two cities are in the graph. The steps run as
+	// one under the graph's lock, so a removed city is never seen without its path.
+	private void sync(Version<E> changed)
+	{
+		synchronized(graph)
+		{
+			int a = changed.a, b = changed.b;
+			Double cost = current.cost(a, b);
+			Vertex<E> from = graph.getVertex(a), to = graph.getVertex(b);
+			boolean present = from != null && to != null && from.isAdjacent(to);
+			if(present && cost == null)
+				graph.removeById(a, b);
+			else if(!present && cost != null)
+				graph.addEdgeById(a, b, cost);
+
+			for(int id : new int[] { a, b })
+			{
+				if(current.cities.containsKey(id))
+					graph.addToVertexSet(id);
+				else if(graph.getVertex(id) != null)
+					graph.removeVertexById(id);
+			}
+		}
+	}
+
+	/**
+	 *
+	 * One state of the graph in its history: its cities and their paths, and the
+	 * edit that led to it from its parent.
+	 *
+	 */
+
+	public static final class Version<E>
+	{
+		private final GraphHistory<E> history;
+		private final int number;
+		private final Version<E> parent;
+		private final int depth;
+		private final String description;
+		private final int a, b; // ids of the cities the edit touched, -1 for version 0
+		private final PersistentIntMap<City<E>> cities;
+		private final int edges;
+		private Version<E> redo; // child to redo into, guarded by history
+
+		private Version(GraphHistory<E> history, int number, Version<E> parent, String description, int a, int b, PersistentIntMap<City<E>> cities, int edges)
+		{
+			this.history = history;
+			this.number = number;
+			this.parent = parent;
+			this.depth = parent == null ? 0 : parent.depth + 1;
+			this.description = description;
+			this.a = a;
+			this.b = b;
+			this.cities = cities;
+			this.edges = edges;
+		}
+
+		// Position in GraphHistory.versions().
+		public int getNumber()
+		{
+			return number;
+		}
+
+		// Version this one was edited from, or null for version 0.
+		public Version<E> getParent()
+		{
+			return parent;
+		}
+
+		// What the edit that made this version did.
+		public String getDescription()
+		{
+			return description;
+		}
+
+		public int cityCount()
+		{
+			return cities.size();
+		}
+
+		public int pathCount()
+		{
+			return edges;
+		}
+
+		// A new graph holding this version, independent of the history's graph
+		// and of every other version, e.g. to solve on another thread.
+		@SuppressWarnings("unchecked")
+		public Graph<E> toGraph()
+		{
+			int[] ids = cities.keys();
+			Arrays.sort(ids);
+			E[] names = (E[])new Object[ids.length];
+			int[] offsets = new int[ids.length + 1];
+			for(int v = 0; v < ids.length; v++)
+			{
+				names[v] = cities.get(ids[v]).label;
+				offsets[v + 1] = offsets[v] + cities.get(ids[v]).roads.size();
+			}
+
+			int[] targets = new int[offsets[ids.length]];
+			double[] weights = new double[targets.length];
+			for(int v = 0; v < ids.length; v++)
+			{
+				PersistentIntMap<Double> roads = cities.get(ids[v]).roads;
+				int[] neighbors = roads.keys();
+				Arrays.sort(neighbors);
+				for(int i = 0; i < neighbors.length; i++)
+				{
+					targets[offsets[v] + i] = Arrays.binarySearch(ids, neighbors[i]);
+					weights[offsets[v] + i] = roads.get(neighbors[i]);
+				}
+			}
+
+			Graph<E> graph = new Graph<>();
+			graph.addAdjacency(names, offsets, targets, weights);
+			return graph;
+		}
+
+		public String toString()
+		{
+			return "Version " + number + ": " + description + " (" + cities.size() + " cities, " + edges + " paths)";
+		}
+
+		// cost of the path between ids a and b, or null if there is none
+		private Double cost(int a, int b)
+		{
+			City<E> city = a < 0 ? null : cities.get(a);
+			return city == null ? null : city.roads.get(b);
+		}
+	}
+
+	// a city and the costs of its paths by neighbor id
+	private static final class City<E>
+	{
+		final E label;
+		final PersistentIntMap<Double> roads;
+
+		City(E label, PersistentIntMap<Double> roads)
+		{
+			this.label = label;
+			this.roads = roads;
+		}
+
+		City<E> with(int neighbor, double cost)
+		{
+			return new City<E>(label, roads.put(neighbor, cost));
+		}
+
+		City<E> without(int neighbor)
+		{
+			return new City<E>(label, roads.remove(neighbor));
+		}
+	}
+}
@@ -0,0 +1,225 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ *
+ * Loads a graph file in the cities*.txt format:
+ *
+ *   number of connections
+ *   city name
+ *   connected city name      (repeated "number of connections" times)
+ *   distance
+ *
+ * The file is memory-mapped and read with a byte-level tokenizer instead of
+ * Scanner. Each distinct city name is decoded to a String once, no matter how
+ * often it appears. The edges are collected into primitive arrays first and
+ * handed to Graph.addEdges, so the graph is only touched when the whole file
+ * has parsed.
+ *
+ * A malformed file raises an InputMismatchException (a NoSuchElementException,
+ * like Scanner's) naming the offending line, and leaves the graph unchanged.
+ *
+ */
+
+public class GraphLoader
+{
+	private final MappedByteBuffer buf;
+	private final int limit;
+	private int pos;
+	private int line = 1;
+
+	// city names seen so far, hashed by their bytes
+	private String[] names = new String[16];
+	private byte[][] nameBytes = new byte[16][];
+	private int nameCount;
+	private int[] nameSlots = new int[32];
+
+	private GraphLoader(MappedByteBuffer buf)
+	{
+		this.buf = buf;
+		limit = buf.limit();
+		Arrays.fill(nameSlots, -1);
+	}
+
+	// Adds every edge in file to graph; throws IOException if the file can't be read.
+	public static void load(File file, Graph<String> graph) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			if(channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Graph file too large to map: " + file);
+
+			GraphLoader loader = new GraphLoader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			loader.parse(graph);
+		}
+	}
+
+	private void parse(Graph<String> graph)
+	{
+		int[] src = new int[64], dst = new int[64];
+		double[] cost = new double[64];
+		int edges = 0;
+
+		while(skipWhitespace())
+		{
+			int conn = nextInt();
+			skipLine();
+			int mainCity = nextName();
+			for(int i = 0; i < conn; i++)
+			{
+				int tarCity = nextName();
+				int dist = nextInt();
+				skipLine();
+
+				if(edges == src.length)
+				{
+					src = Arrays.copyOf(src, edges * 2);
+					dst = Arrays.copyOf(dst, edges * 2);
+					cost = Arrays.copyOf(cost, edges * 2);
+				}
+				src[edges] = mainCity;
+				dst[edges] = tarCity;
+				cost[edges++] = dist;
+			}
+		}
+
+		graph.addEdges(Arrays.copyOf(names, nameCount), src, dst, cost, edges);
+	}
+
+	// Skips blanks and line breaks; returns false at the end of the file.
+	private boolean skipWhitespace()
+	{
+		while(pos < limit)
+		{
+			byte b = buf.get(pos);
+			if(b == '\n')
+				++line;
+			else if(b != ' ' && b != '\t' && b != '\r')
+				return true;
+			++pos;
+		}
+		return false;
+	}
+
+	// Moves past the end of the current line.
+	private void skipLine()
+	{
+		while(pos < limit && buf.get(pos++) != '\n')
+			;
+		++line;
+	}
+
+	private int nextInt()
+	{
+		if(!skipWhitespace())
+			throw new InputMismatchException("Expected a number at line " + line + " but the file ended.");
+
+		boolean negative = buf.get(pos) == '-';
+		if(negative || buf.get(pos) == '+')
+			++pos;
+
+		int start = pos;
+		long value = 0;
+		while(pos < limit)
+		{
+			byte b = buf.get(pos);
+			if(b < '0' || b > '9')
+				break;
+			value = value * 10 + (b - '0');
+			if(value > Integer.MAX_VALUE)
+				throw new InputMismatchException("Number too large at line " + line + ".");
+			++pos;
+		}
+		if(pos == start || (pos < limit && !isSpace(buf.get(pos))))
+			throw new InputMismatchException("Expected a number at line " + line + ".");
+		return (int)(negative ? -value : value);
+	}
+
+	// Reads the rest of the current line as a city name and returns its name number.
+	private int nextName()
+	{
+		if(pos >= limit)
+			throw new InputMismatchException("Expected a city name at line " + line + " but the file ended.");
+
+		int start = pos, end;
+		while(pos < limit && buf.get(pos) != '\n')
+			++pos;
+		end = pos > start && buf.get(pos - 1) == '\r' ? pos - 1 : pos;
+		if(pos < limit)
+			++pos;
+		++line;
+		return intern(start, end);
+	}
+
+	// Number of the name stored in bytes [start, end), adding it if it is new.
+	private int intern(int start, int end)
+	{
+		int h = 1;
+		for(int i = start; i < end; i++)
+			h = 31 * h + buf.get(i);
+
+		int mask = nameSlots.length - 1;
+		int slot = (h ^ (h >>> 16)) & mask;
+		while(nameSlots[slot] >= 0)
+		{
+			if(sameBytes(nameBytes[nameSlots[slot]], start, end))
+				return nameSlots[slot];
+			slot = (slot + 1) & mask;
+		}
+
+		byte[] bytes = new byte[end - start];
+		for(int i = 0; i < bytes.length; i++)
+			bytes[i] = buf.get(start + i);
+
+		if(nameCount == names.length)
+		{
+			names = Arrays.copyOf(names, nameCount * 2);
+			nameBytes = Arrays.copyOf(nameBytes, nameCount * 2);
+		}
+		names[nameCount] = new String(bytes, StandardCharsets.UTF_8);
+		nameBytes[nameCount] = bytes;
+		nameSlots[slot] = nameCount;
+		if(++nameCount * 2 > nameSlots.length)
+			rehashNames();
+		return nameCount - 1;
+	}
+
+	private boolean sameBytes(byte[] bytes, int start, int end)
+	{
+		if(bytes.length != end - start)
+			return false;
+		for(int i = 0; i < bytes.length; i++)
+		{
+			if(bytes[i] != buf.get(start + i))
+				return false;
+		}
+		return true;
+	}
+
+	private void rehashNames()
+	{
+		nameSlots = new int[nameSlots.length * 2];
+		Arrays.fill(nameSlots, -1);
+		int mask = nameSlots.length - 1;
+		for(int n = 0; n < nameCount; n++)
+		{
+			int h = 1;
+			for(byte b : nameBytes[n])
+				h = 31 * h + b;
+			int slot = (h ^ (h >>> 16)) & mask;
+			while(nameSlots[slot] >= 0)
+				slot = (slot + 1) & mask;
+			nameSlots[slot] = n;
+		}
+	}
+
+	private static boolean isSpace(byte b)
+	{
+		return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+	}
+}
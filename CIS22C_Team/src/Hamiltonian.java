@@ -3,90 +3,142 @@ import java.util.Map.Entry;
 
 /**
  * 
- * City object to store specified information for later use with the undo-stack.
+ * Hamiltonian Circuit algorithm code to solve graph problem.
  * 
- * @author Michael Kang
+ * @author Faisal Albannai
  *
+ * @param graph = data inputed via file
+ * @param result = list to pass the answer.
+ * 
  */
 
-class City<E> implements Comparable<City<E>>
-{
-	Vertex<E> source, dest;
-	double cost;
+public class Hamiltonian<E> extends CircuitSolver<E>{
 
-	City(Vertex<E> src, Vertex<E> dst, Double cst)
-	{
-		source = src;
-		dest = dst;
-		cost = cst;
-	}
+	// Search state: vertices interned to ints, visited set as a bitset, and an
+	// explicit stack (path plus the next edge to try at each depth) in place of
+	// recursion. The arrays are reused by later solves of graphs no larger.
+	private CsrGraph<E> snapshot;
+	private long[] visited;
+	private int[] path;
+	private int[] cursor;
 
-	City(Vertex<E> src, Vertex<E> dst, Integer cst)
-	{
-		this (src, dst, cst.doubleValue());
-	}
+	// Search steps between checks of the time limit.
+	private static final int CHECK_INTERVAL = 4096;
+	private long timeLimit;
+	private boolean timedOut;
+	private String reason;
 
-	City()
+	// Limits each solve to the given number of milliseconds, 0 for no limit.
+	public void setTimeLimit(long millis)
 	{
-		this(null, null, 1.);
+		if(millis < 0)
+			throw new IllegalArgumentException("Time limit can't be negative.");
+		timeLimit = millis;
 	}
 
-	public String toString()
-	{ 
-		return "Edge: " + source.getData() + " to " + dest.getData() + ", distance: " + cost;
+	// True if the last solve ran out of time; its false answer then proves nothing.
+	public boolean isTimedOut()
+	{
+		return timedOut;
 	}
 
-	public int compareTo(City<E> rhs)
+	// Why the last solve found no circuit without searching (see Feasibility), or null.
+	public String getReason()
 	{
-		return (cost < rhs.cost? -1 : cost > rhs.cost? 1 : 0);
+		return reason;
 	}
-}
 
-/**
- * 
- * Hamiltonian Circuit algorithm code to solve graph problem.
- * 
- * @author Faisal Albannai
- *
- * @param graph = data inputed via file
- * @param result = list to pass the answer.
- * 
- */
+	boolean solve(CsrGraph<E> graph, List<Vertex<E>> cycleList)
+	{
+		timedOut = false;
+		reason = null;
+		if(graph.size() == 0)
+			return false;
 
-public class Hamiltonian<E> extends Graph<E>{
+		long start = System.nanoTime();
+		snapshot = graph;
+		reason = Feasibility.check(snapshot);
+		metrics.addPhase("feasibility", System.nanoTime() - start);
+		if(reason != null)
+			return false;
+		int graphSize = snapshot.size();
+		if(path == null || path.length < graphSize)
+		{
+			visited = new long[(graphSize + 63) >>> 6];
+			path = new int[graphSize];
+			cursor = new int[graphSize];
+		}
+		else
+			Arrays.fill(visited, 0L);
 
-	public boolean solveHamil(Graph<E> graph, List<Vertex<E>> cycleList)
-	{
 		//The starting vertex is irrelevant.
-		return backtrackHamil(graph.vertexSet.values().iterator().next(), graph.vertexSet.values().iterator().next(), cycleList,graph.vertexSet.values().size());
+		start = System.nanoTime();
+		SolverMetrics.Counter counter = metrics.counter(graphSize);
+		boolean found = backtrackHamil(0, graphSize, counter);
+		counter.flush();
+		metrics.addPhase("search", System.nanoTime() - start);
+		if(!found)
+			return false;
+
+		for(int i = 0; i < graphSize; i++)
+			cycleList.add(snapshot.vertex(path[i]));
+		cycleList.add(snapshot.vertex(0));
+		return true;
 	}
 
-	private boolean backtrackHamil(Vertex<E> startV, Vertex<E> currV, List<Vertex<E>> cycleList, int graphSize)
+	private boolean backtrackHamil(int startV, int graphSize, SolverMetrics.Counter counter)
 	{
-		cycleList.add(currV);
-		Iterator<Entry<E, Pair<Vertex<E>, Double>>> iterV = currV.iterator();
+		int[] offsets = snapshot.offsets;
+		int[] targets = snapshot.targets;
+		int depth = 0;
+		long deadline = timeLimit > 0 ? System.nanoTime() + timeLimit * 1000000L : Long.MAX_VALUE;
+		int sinceCheck = 0;
+
+		path[0] = startV;
+		cursor[0] = offsets[startV];
+		visited[startV >>> 6] |= 1L << startV;
+		counter.node(0);
+
+		while(depth >= 0)
+		{
+			if(++sinceCheck == CHECK_INTERVAL)
+			{
+				sinceCheck = 0;
+				counter.flush();
+				if(System.nanoTime() > deadline)
+				{
+					timedOut = true;
+					return false;
+				}
+			}
+
+			int currV = path[depth];
+			if(cursor[depth] == offsets[currV + 1])
+			{
+				//if the cycle cannot be finished, start backtracking and take another path 
+				visited[currV >>> 6] &= ~(1L << currV);
+				--depth;
+				counter.backtrack();
+				continue;
+			}
 
-		while(iterV.hasNext())
-		{ 
 			//iterate through all vertices
-			Vertex<E> currVEdge = iterV.next().getValue().first; //get the current vertex
+			int currVEdge = targets[cursor[depth]++]; //get the current vertex
 
-			if(startV.equals(currVEdge) && graphSize == cycleList.size())
+			if(startV == currVEdge && graphSize == depth + 1)
 			{ 
 				//completed the cycle
-				cycleList.add(startV);
 				return true;
 			}
-			if(!cycleList.contains(currVEdge))
+			if((visited[currVEdge >>> 6] & (1L << currVEdge)) == 0)
 			{ 
-				//recursive cycle if vertex hasn't been visited
-				boolean isHamil = backtrackHamil(startV, currVEdge, cycleList, graphSize);
-				if(isHamil)
-					return true;
+				//go one level deeper if vertex hasn't been visited
+				path[++depth] = currVEdge;
+				cursor[depth] = offsets[currVEdge];
+				visited[currVEdge >>> 6] |= 1L << currVEdge;
+				counter.node(depth);
 			}
 		}
-		//if the cycle cannot be finished, start backtracking and take another path 
-		cycleList.remove(cycleList.size()-1);
 		return false;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,137 @@
+import java.util.*;
+
+/**
+ *
+ * Held-Karp dynamic programming solver for the minimum-cost Hamiltonian circuit.
+ *
+ * The tour is anchored at vertex 0 of the CsrGraph snapshot; every other vertex gets a
+ * bit in a subset mask. best[mask * m + k] holds the cheapest cost of a path that
+ * leaves vertex 0, visits exactly the vertices in mask and ends at vertex k, and
+ * parent[] records the vertex visited just before k so the tour can be rebuilt.
+ * Both tables are flat primitive arrays, and each subset reads its predecessors
+ * from one contiguous row.
+ *
+ * Memory grows as 2^(n-1) * (n-1) entries of 9 bytes and time as about
+ * 2^(n-1) * (n-1)^2 / 4 steps, so the solver is limited to MAX_VERTICES
+ * vertices: about 90 MB and a second. Every vertex added doubles
+ * both, and at 25 the tables alone need 3.6 GB.
+ *
+ */
+
+public class HeldKarp<E> extends CircuitSolver<E>
+{
+	public static final int MAX_VERTICES = 20;
+
+	private double cost = Double.NaN;
+
+	boolean solve(CsrGraph<E> snapshot, List<Vertex<E>> cycleList)
+	{
+		cost = Double.NaN;
+		int n = snapshot.size();
+		if(n == 0)
+			return false;
+		if(n > MAX_VERTICES)
+			throw new IllegalArgumentException("Held-Karp is limited to " + MAX_VERTICES + " vertices.");
+
+		double[] dist = snapshot.costMatrix();
+
+		if(n == 1)
+		{
+			// only a self loop can close a one city circuit
+			if(dist[0] == Double.POSITIVE_INFINITY)
+				return false;
+			cost = dist[0];
+			cycleList.add(snapshot.vertex(0));
+			cycleList.add(snapshot.vertex(0));
+			return true;
+		}
+
+		long start = System.nanoTime();
+		int m = n - 1;
+		int subsets = 1 << m;
+		double[] best = new double[subsets * m];
+		byte[] parent = new byte[subsets * m];
+		Arrays.fill(best, Double.POSITIVE_INFINITY);
+
+		// paths that leave the start and visit a single vertex
+		for(int k = 0; k < m; k++)
+		{
+			best[(1 << k) * m + k] = dist[k + 1];
+			parent[(1 << k) * m + k] = -1;
+		}
+
+		for(int mask = 1; mask < subsets; mask++)
+		{
+			if((mask & (mask - 1)) == 0)
+				continue; // single vertex subsets are seeded above
+
+			int row = mask * m;
+			for(int ks = mask; ks != 0; ks &= ks - 1)
+			{
+				int k = Integer.numberOfTrailingZeros(ks);
+				int prev = mask ^ (1 << k);
+				int prevRow = prev * m;
+				int column = (k + 1);
+				double min = Double.POSITIVE_INFINITY;
+				int argMin = -1;
+
+				// only the vertices in prev can come before k; the rest of its row is infinite
+				for(int is = prev; is != 0; is &= is - 1)
+				{
+					int i = Integer.numberOfTrailingZeros(is);
+					double c = best[prevRow + i] + dist[(i + 1) * n + column];
+					if(c < min)
+					{
+						min = c;
+						argMin = i;
+					}
+				}
+				best[row + k] = min;
+				parent[row + k] = (byte)argMin;
+			}
+		}
+
+		// every (subset, last vertex) pair is one state of the table
+		metrics.addNodes((long)m << (m - 1), m);
+		metrics.addPhase("table", System.nanoTime() - start);
+
+		// close the circuit back to the start
+		int fullRow = (subsets - 1) * m;
+		double min = Double.POSITIVE_INFINITY;
+		int last = -1;
+		for(int k = 0; k < m; k++)
+		{
+			double c = best[fullRow + k] + dist[(k + 1) * n];
+			if(c < min)
+			{
+				min = c;
+				last = k;
+			}
+		}
+		if(last < 0)
+			return false;
+
+		// walk the parent pointers back from the last vertex to the start
+		int[] tour = new int[n];
+		int mask = subsets - 1;
+		for(int pos = m; pos > 0; pos--)
+		{
+			tour[pos] = last + 1;
+			int prev = parent[mask * m + last];
+			mask ^= 1 << last;
+			last = prev;
+		}
+
+		cost = min;
+		for(int i = 0; i < n; i++)
+			cycleList.add(snapshot.vertex(tour[i]));
+		cycleList.add(snapshot.vertex(0));
+		return true;
+	}
+
+	// Cost of the last circuit found by solveHamil, or NaN if none was found.
+	public double getCost()
+	{
+		return cost;
+	}
+}
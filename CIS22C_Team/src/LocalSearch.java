@@ -0,0 +1,418 @@
+import java.util.*;
+
+/**
+ *
+ * Improves an existing Hamiltonian circuit, e.g. one from Hamiltonian.solveHamil
+ * or TourHeuristics, by local search over the graph's edge costs:
+ *
+ *   - 2-opt: replace two circuit edges by the two edges that reconnect the
+ *     circuit the other way, reversing the path between them,
+ *   - Or-opt: move a run of up to three cities, possibly reversed, to between
+ *     two other neighboring cities,
+ *   - Lin-Kernighan style: a chain of up to MAX_DEPTH 2-opt moves from one city,
+ *     kept up to its most profitable step even if the first steps cost more.
+ *
+ * Moves are only tried toward each city's CANDIDATES cheapest neighbors. A city
+ * whose moves were all tried without success gets its don't-look bit set and is
+ * skipped until a move changes one of its circuit edges. Missing edges cost
+ * infinity, so no move ever leaves the graph.
+ *
+ * The search stops when no city has a move left, or when the time limit runs out.
+ *
+ */
+
+public class LocalSearch<E>
+{
+	enum Move { TWO_OPT, OR_OPT, LIN_KERNIGHAN }
+
+	// Steps in one Lin-Kernighan style chain.
+	private static final int MAX_DEPTH = 6;
+	// Cities examined between checks of the time limit.
+	private static final int CHECK_INTERVAL = 256;
+	private static final double EPSILON = 1e-9;
+
+	private long timeLimit;
+	private EnumSet<Move> moves = EnumSet.allOf(Move.class);
+
+	// result of the last run
+	private double initialCost = Double.NaN;
+	private double cost = Double.NaN;
+
+	// search state
+	private CsrGraph<?> graph;
+	private int n;
+	private int[] tour, pos;
+	private int[][] neighbors;
+	private double[][] neighborCosts;
+	private int[] queue;         // cities with their don't-look bit off, in FIFO order
+	private boolean[] queued;
+	private int head, queueSize;
+	private int[] chain = new int[4 * MAX_DEPTH];
+
+	// Limits each run to the given number of milliseconds, 0 for no limit.
+	public void setTimeLimit(long millis)
+	{
+		if(millis < 0)
+			throw new IllegalArgumentException("Time limit can't be negative.");
+		timeLimit = millis;
+	}
+
+	// Tries only the given moves, e.g. to check one on its own; all of them by default.
+	void setMoves(EnumSet<Move> moves)
+	{
+		this.moves = EnumSet.copyOf(moves);
+	}
+
+	// Improves the circuit in cycleList (as filled by solveHamil) in place; returns true if it got cheaper.
+	public boolean improve(Graph<E> graph, List<Vertex<E>> cycleList)
+	{
+		CsrGraph<E> snapshot = graph.freeze();
+		int size = snapshot.size();
+		if(cycleList.size() != size + 1 || cycleList.get(0) != cycleList.get(size))
+			throw new IllegalArgumentException("Not a Hamiltonian circuit of this graph.");
+
+		int[] circuit = new int[size];
+		for(int i = 0; i < size; i++)
+		{
+			circuit[i] = snapshot.indexOfId(cycleList.get(i).id);
+			if(circuit[i] < 0)
+				throw new IllegalArgumentException("Not a Hamiltonian circuit of this graph.");
+		}
+
+		initialCost = TourHeuristics.tourCost(snapshot, circuit);
+		long deadline = timeLimit > 0 ? System.nanoTime() + timeLimit * 1000000L : Long.MAX_VALUE;
+		cost = improve(snapshot, circuit, deadline);
+
+		// same starting city as before, in the order the search left it
+		int start = 0;
+		while(circuit[start] != snapshot.indexOfId(cycleList.get(0).id))
+			++start;
+		cycleList.clear();
+		for(int i = 0; i <= size; i++)
+			cycleList.add(snapshot.vertex(circuit[(start + i) % size]));
+		return cost < initialCost;
+	}
+
+	// Cost of the circuit before the last run, or NaN before the first.
+	public double getInitialCost()
+	{
+		return initialCost;
+	}
+
+	// Cost of the circuit after the last run, or NaN before the first.
+	public double getCost()
+	{
+		return cost;
+	}
+
+	// How much cheaper the last run made the circuit.
+	public double getImprovement()
+	{
+		return initialCost - cost;
+	}
+
+	// Improves circuit, given as snapshot indices, in place until nothing helps or deadline passes; returns its cost.
+	double improve(CsrGraph<?> snapshot, int[] circuit, long deadline)
+	{
+		setUp(snapshot, circuit);
+		if(n >= 4)
+		{
+			int sinceCheck = 0;
+			while(queueSize > 0)
+			{
+				if(++sinceCheck == CHECK_INTERVAL)
+				{
+					sinceCheck = 0;
+					if(System.nanoTime() - deadline >= 0)
+						break;
+				}
+
+				int a = queue[head];
+				head = (head + 1) % n;
+				--queueSize;
+				queued[a] = false;
+				if((moves.contains(Move.TWO_OPT) && twoOpt(a)) || (moves.contains(Move.OR_OPT) && orOpt(a))
+						|| (moves.contains(Move.LIN_KERNIGHAN) && linKernighan(a)))
+					activate(a);
+			}
+		}
+		graph = null; // don't hold on to the snapshot
+		return TourHeuristics.tourCost(snapshot, circuit);
+	}
+
+	private void setUp(CsrGraph<?> snapshot, int[] circuit)
+	{
+		graph = snapshot;
+		n = circuit.length;
+		tour = circuit;
+		pos = new int[n];
+		for(int i = 0; i < n; i++)
+			pos[tour[i]] = i;
+
+		neighbors = new int[n][];
+		neighborCosts = new double[n][];
+		int[] best = new int[TourHeuristics.CANDIDATES];
+		for(int v = 0; v < n; v++)
+		{
+			int kept = TourHeuristics.cheapestEdges(snapshot, v, best);
+			neighbors[v] = new int[kept];
+			neighborCosts[v] = new double[kept];
+			for(int i = 0; i < kept; i++)
+			{
+				neighbors[v][i] = snapshot.targets[best[i]];
+				neighborCosts[v][i] = snapshot.weights[best[i]];
+			}
+		}
+
+		queue = new int[n];
+		queued = new boolean[n];
+		head = queueSize = 0;
+		for(int i = 0; i < n; i++)
+			activate(tour[i]);
+	}
+
+	// First improving 2-opt move that removes one of a's circuit edges.
+	private boolean twoOpt(int a)
+	{
+		for(int side = 0; side < 2; side++)
+		{
+			int b = side == 0 ? succ(a) : pred(a);
+			double removed = graph.cost(a, b);
+			for(int i = 0; i < neighbors[a].length; i++)
+			{
+				int c = neighbors[a][i];
+				if(neighborCosts[a][i] >= removed)
+					break; // no cheaper neighbors left
+				int d = side == 0 ? succ(c) : pred(c);
+				if(c == a || c == b || d == a)
+					continue;
+				double delta = neighborCosts[a][i] + graph.cost(b, d) - removed - graph.cost(c, d);
+				if(delta < -EPSILON)
+				{
+					exchange(a, b, c, d);
+					activate(b);
+					activate(c);
+					activate(d);
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	// Moves a run of one to three cities starting at a next to one of the neighbors of its ends.
+	private boolean orOpt(int a)
+	{
+		for(int len = 1; len <= 3 && len + 3 <= n; len++)
+		{
+			int first = a, last = a;
+			for(int i = 1; i < len; i++)
+				last = succ(last);
+			int p = pred(first), q = succ(last);
+			double removed = graph.cost(p, first) + graph.cost(last, q) - graph.cost(p, q);
+			if(!(removed > EPSILON))
+				continue;
+
+			for(int end = 0; end < 2; end++)
+			{
+				int v = end == 0 ? first : last;
+				for(int i = 0; i < neighbors[v].length; i++)
+				{
+					int c = neighbors[v][i];
+					if(neighborCosts[v][i] >= removed)
+						break;
+					if(inRun(c, first, len))
+						continue;
+					for(int side = 0; side < 2; side++)
+					{
+						// insert between x and its successor y
+						int x = side == 0 ? c : pred(c);
+						int y = succ(x);
+						if(inRun(x, first, len) || inRun(y, first, len))
+							continue;
+						double xy = graph.cost(x, y);
+						double forward = graph.cost(x, first) + graph.cost(last, y) - xy;
+						double reversed = graph.cost(x, last) + graph.cost(first, y) - xy;
+						if(Math.min(forward, reversed) < removed - EPSILON)
+						{
+							moveRun(first, len, x, reversed < forward);
+							activate(p);
+							activate(q);
+							activate(x);
+							activate(y);
+							activate(last);
+							return true;
+						}
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	// Chain of 2-opt moves from t1, rolled back to its most profitable step.
+	private boolean linKernighan(int t1)
+	{
+		for(int side = 0; side < 2; side++)
+		{
+			int t2 = side == 0 ? succ(t1) : pred(t1);
+			double gain = graph.cost(t1, t2);
+			double bestGain = EPSILON;
+			int depth = 0, bestDepth = 0;
+
+			while(depth < MAX_DEPTH)
+			{
+				// break (t1, t2) and (t3, t4), add (t2, t3) and close with (t4, t1)
+				boolean after = succ(t2) == t1;
+				int t3 = -1, t4 = -1;
+				double bestScore = Double.NEGATIVE_INFINITY, g1 = 0;
+				for(int i = 0; i < neighbors[t2].length; i++)
+				{
+					int c = neighbors[t2][i];
+					double g = gain - neighborCosts[t2][i];
+					if(g <= EPSILON)
+						break;
+					int d = after ? succ(c) : pred(c);
+					if(c == t1 || c == t2 || d == t2)
+						continue;
+					double score = g + graph.cost(c, d);
+					if(score > bestScore)
+					{
+						bestScore = score;
+						t3 = c;
+						t4 = d;
+						g1 = g;
+					}
+				}
+				if(t3 < 0)
+					break;
+
+				exchange(t2, t1, t3, t4);
+				chain[4 * depth] = t2;
+				chain[4 * depth + 1] = t1;
+				chain[4 * depth + 2] = t3;
+				chain[4 * depth + 3] = t4;
+				++depth;
+
+				gain = g1 + graph.cost(t3, t4);
+				double closed = gain - graph.cost(t4, t1);
+				if(closed > bestGain)
+				{
+					bestGain = closed;
+					bestDepth = depth;
+				}
+				t2 = t4;
+			}
+
+			// undo the steps past the best one
+			while(depth > bestDepth)
+			{
+				--depth;
+				exchange(chain[4 * depth], chain[4 * depth + 2], chain[4 * depth + 1], chain[4 * depth + 3]);
+			}
+			if(bestDepth > 0)
+			{
+				for(int i = 0; i < 4 * bestDepth; i++)
+					activate(chain[i]);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Replaces circuit edges (a, b) and (c, d) by (a, c) and (b, d); b must follow a the way d follows c.
+	private void exchange(int a, int b, int c, int d)
+	{
+		if(succ(a) == b)
+			reverse(pos[b], pos[c]);
+		else
+			reverse(pos[c], pos[b]);
+	}
+
+	// Reverses the circuit from position i to position j, going forward; or the rest of it, if that is shorter.
+	private void reverse(int i, int j)
+	{
+		int len = (j - i + n) % n + 1;
+		if(2 * len > n)
+		{
+			int k = i;
+			i = (j + 1) % n;
+			j = (k - 1 + n) % n;
+			len = n - len;
+		}
+		for(int k = 0; k < len / 2; k++)
+		{
+			int x = tour[i], y = tour[j];
+			tour[i] = y;
+			pos[y] = i;
+			tour[j] = x;
+			pos[x] = j;
+			i = (i + 1) % n;
+			j = (j - 1 + n) % n;
+		}
+	}
+
+	// Moves the len cities from first on to between x and its successor, reversed if asked.
+	private void moveRun(int first, int len, int x, boolean reversed)
+	{
+		int start = pos[first];
+		int[] run = new int[len];
+		for(int k = 0; k < len; k++)
+			run[k] = tour[(start + k) % n];
+
+		// the circuit is run, then A (after the run up to x), then B (from x's successor back round)
+		int lenA = (pos[x] - (start + len) % n + n) % n + 1;
+		int lenB = n - len - lenA;
+		int at;
+		if(lenA <= lenB)
+		{
+			// shift A back over the run
+			for(int k = 0; k < lenA; k++)
+				place(tour[(start + len + k) % n], (start + k) % n);
+			at = (start + lenA) % n;
+		}
+		else
+		{
+			// shift B forward over the run
+			for(int k = lenB - 1; k >= 0; k--)
+			{
+				int from = (start + len + lenA + k) % n;
+				place(tour[from], (from + len) % n);
+			}
+			at = (start + len + lenA) % n;
+		}
+		for(int k = 0; k < len; k++)
+			place(run[reversed ? len - 1 - k : k], (at + k) % n);
+	}
+
+	private void place(int v, int i)
+	{
+		tour[i] = v;
+		pos[v] = i;
+	}
+
+	private boolean inRun(int v, int first, int len)
+	{
+		return (pos[v] - pos[first] + n) % n < len;
+	}
+
+	private int succ(int v)
+	{
+		return tour[(pos[v] + 1) % n];
+	}
+
+	private int pred(int v)
+	{
+		return tour[(pos[v] - 1 + n) % n];
+	}
+
+	// Clears v's don't-look bit.
+	private void activate(int v)
+	{
+		if(!queued[v])
+		{
+			queued[v] = true;
+			queue[(head + queueSize++) % n] = v;
+		}
+	}
+}
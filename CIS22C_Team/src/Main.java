@@ -1,7 +1,6 @@
 import java.util.*;
 import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -16,7 +15,7 @@ import java.io.PrintStream;
  * 
  * This program will allow for test file inputs, displaying breadth-first, depth-first
  * and adjacency list for the graph, adding and removing cities and paths, and
- * undoing previous removals.
+ * undoing and redoing those changes.
  * 
  * @author Faisal Albannai, Michael Kang, Ao Yu Hsiao
  * 
@@ -34,9 +33,16 @@ public class Main
 	// Standard scanner variable.
 	public static Scanner userScanner = new Scanner(System.in);
 	
-	// Graph variable to store city/path details. LinkedStack variable to store Edge removals for undo.
+	// Graph variable to store city/path details. GraphHistory variable to record its changes for undo,
+	// made when a graph file loads, or by the first change to a graph built by hand (see history()).
 	public static Graph<String> cities = new Graph<>();
-	public static LinkedStack<City<String>> undo = new LinkedStack<>();
+	public static GraphHistory<String> history;
+	
+	// Last solution, reused by solveProblem when later edits leave it valid.
+	public static SolutionCache<String> solutions = new SolutionCache<>();
+	
+	// Time budget for solving graphs too large for Held-Karp.
+	public static final long SOLVE_MILLIS = 5000;
 
 	public static void main(String[] args)
 	{
@@ -62,7 +68,7 @@ public class Main
 				System.out.println("	3. [Solve Problem]");
 				System.out.println("	4. [Add Path]");
 				System.out.println("	5. [Remove Path]");
-				System.out.println("	6. [Undo Previous Removal]");
+				System.out.println("	6. [Undo/Redo Changes]");
 				System.out.print("\nPlease enter choice now: ");
 				choice = userScanner.nextInt();
 				userScanner.nextLine();
@@ -92,8 +98,8 @@ public class Main
 						removeEdge();
 						break;
 
-					case 6: // Undo previous removed path.
-						undoRemove();
+					case 6: // Undo or redo added and removed paths.
+						undoChanges();
 						break;
 					}
 				}
@@ -118,39 +124,21 @@ public class Main
 	// store information into appropriate variables, close file and confirm.
 	public static void loadGraph()
 	{
-		String mainCity, tarCity;
-		int conn, dist;
+		// city ids start over with the new graph, so older changes can't be undone
 		cities.clear();
-		Scanner check = openInputFile();
+		history = null;
+		File check = openInputFile();
 		
 		// Check if file is found.
 		if(check != null)
 		{
 			try
 			{
-				while(check.hasNext())
-				{
-					conn = check.nextInt();
-					check.nextLine();
-					mainCity = check.nextLine();
-					if(conn == 1)
-					{
-						tarCity = check.nextLine();
-						dist = check.nextInt();
-						check.nextLine();
-						cities.addEdge(mainCity, tarCity, dist);
-					}
-					else
-					{
-						for(int i = 0; i < conn; i++)
-						{
-							tarCity = check.nextLine();
-							dist = check.nextInt();
-							check.nextLine();
-							cities.addEdge(mainCity, tarCity, dist);
-						}
-					}
-				}
+				// binary graph files load directly, anything else is parsed as text
+				if(BinaryGraphFile.isBinary(check))
+					BinaryGraphFile.read(check, cities);
+				else
+					GraphLoader.load(check, cities);
 			}
 			
 			catch(NoSuchElementException ns)
@@ -159,7 +147,16 @@ public class Main
 				System.out.println("\n|---------------------|\n");
 				return;
 			}
-			check.close();
+			
+			catch(IOException io)
+			{
+				System.out.println("Unable to read file. Returning to main menu.\n" + io);
+				System.out.println("\n|---------------------|\n");
+				return;
+			}
+			// build the solver snapshot now, picking the sparse or dense layout for this graph
+			cities.freeze();
+			history = new GraphHistory<>(cities);
 			System.out.println("\nSuccessfully added all cities from file.\n");
 			System.out.println("\n|---------------------|\n");
 		}
@@ -172,6 +169,15 @@ public class Main
 		}
 	}
 	
+	// Function to get the history of cities, starting it from the graph as it is
+	// now if no graph file has loaded since the last clear.
+	public static GraphHistory<String> history()
+	{
+		if(history == null)
+			history = new GraphHistory<>(cities);
+		return history;
+	}
+	
 	// Function to display loaded graph with several options and the option to
 	// output the adjacency list to a file specified by user.
 	public static void displayGraph()
@@ -290,14 +296,36 @@ public class Main
 		}
 	}
 	
+	// Quick tests first, then small graphs get the cheapest circuit from Held-Karp,
+	// larger ones the best circuit found in SOLVE_MILLIS.
+	public static SolveResult<String> findCircuit()
+	{
+		long start = System.nanoTime();
+		String reason = Feasibility.check(cities.freeze());
+		if(reason != null)
+			return new SolveResult<String>(SolveResult.Status.INFEASIBLE, null, Double.NaN, Double.NaN, (System.nanoTime() - start) / 1000000L, reason);
+
+		if(cities.vertexSet.size() <= HeldKarp.MAX_VERTICES)
+		{
+			HeldKarp<String> heldKarp = new HeldKarp<>();
+			ArrayList<Vertex<String>> cycle = new ArrayList<>();
+			if(heldKarp.solveHamil(cities, cycle))
+				return new SolveResult<String>(SolveResult.Status.OPTIMAL, cycle, heldKarp.getCost(), heldKarp.getCost(), (System.nanoTime() - start) / 1000000L, null, heldKarp.getMetrics());
+			return new SolveResult<String>(SolveResult.Status.INFEASIBLE, null, Double.NaN, Double.NaN, (System.nanoTime() - start) / 1000000L, null, heldKarp.getMetrics());
+		}
+		return new AnytimeSolver<String>().solve(cities, SOLVE_MILLIS);
+	}
+
 	// Solve Hamiltonian Circuit problem.
 	public static void solveProblem()
 	{
 		int choice;
 		String term;
 		boolean solved = false;
+		double cost = Double.NaN;
 		ArrayList<Vertex<String>> temp = new ArrayList<>();
-		Hamiltonian<String> hamil = new Hamiltonian<>();
+		SolveResult<String> result;
+		String reason;
 		
 		System.out.println("{ Hamiltonian Circuit }");
 		System.out.println("{ Solve Problem }" + '\n');
@@ -312,12 +340,25 @@ public class Main
 			return;
 		}
 
-		// If solved, return true.
-		if(hamil.solveHamil(cities, temp))
+		// Reuse the last solution if the edits since then allow it.
+		result = solutions.lookup(cities);
+		if(result == null)
 		{
-			System.out.println("Solved!\n");
-			solved = true;
+			result = findCircuit();
+			solutions.store(cities, result);
 		}
+		solved = result.hasCycle();
+		temp.addAll(result.getCycle());
+		cost = result.getCost();
+		reason = result.getReason();
+
+		// If solved, return true.
+		if(solved)
+			System.out.println("Solved!\n");
+		else if(result.getStatus() == SolveResult.Status.TIMEOUT)
+			System.out.println("No circuit found in " + SOLVE_MILLIS / 1000 + " seconds.\nSearch: " + result.getMetrics() + "\n");
+		else if(reason != null)
+			System.out.println("Can't be solved: " + reason + "\n");
 		else
 			System.out.println("Can't be solved.\n");
 		
@@ -327,6 +368,11 @@ public class Main
 			System.out.println("The Hamiltonian Circuit is:\n");
 			for(int i = 0; i < temp.size(); i++)
 				System.out.println(temp.get(i).data);
+			if(!Double.isNaN(cost))
+				System.out.println("\nTotal distance: " + cost);
+			if(result.getStatus() == SolveResult.Status.FEASIBLE)
+				System.out.println("Not proven to be the shortest circuit."
+						+ (Double.isNaN(result.getLowerBound()) ? "" : " The shortest is at least " + result.getLowerBound() + "."));
 		}
 		
 		System.out.println("\nWould you like to:");
@@ -352,6 +398,8 @@ public class Main
 					System.out.println("\n------------------------\n");
 					for(int i = 0; i < temp.size(); i++)
 						System.out.println(temp.get(i).data);
+					if(!Double.isNaN(cost))
+						System.out.println("\nTotal distance: " + cost);
 				}
 				else
 				{
@@ -425,8 +473,10 @@ public class Main
 						dist = userScanner.nextInt();
 						userScanner.nextLine();
 						
-						cities.addEdge(city, conn, dist);
-						System.out.println("\nSuccessfully added: " + city + " to the graph.");
+						if(history().addEdge(city, conn, dist))
+							System.out.println("\nSuccessfully added: " + city + " to the graph.");
+						else
+							System.out.println("\nPath between " + city + " and " + conn + " already exists.");
 					}
 					break;
 
@@ -474,7 +524,7 @@ public class Main
 		}
 	}
 	
-	// Function to remove a user specified edge and store removed edge for possible
+	// Function to remove a user specified edge, recorded in history for possible
 	// undo command.
 	public static void removeEdge()
 	{
@@ -512,34 +562,15 @@ public class Main
 					System.out.print("\nPlease enter destination city to remove: ");
 					dest = userScanner.nextLine();
 					
-					// Store removed edge in temporary Edge object and push into undo stack.
-					try
-					{
-						City<String> temp = new City<String>(cities.vertexSet.get(source), cities.vertexSet.get(source).adjList.get(dest).first, cities.vertexSet.get(source).adjList.get(dest).second);
-						undo.push(temp);
-						
-						// Check if successfully removed.
-						if(cities.remove(source, dest))
-						{
-							// Check if either source/dest city has any remaining connections,
-							// if they don't, delete the city to ensure Hamiltonian correctness.
-							if(cities.vertexSet.get(source).adjList.isEmpty())
-								cities.vertexSet.remove(source);
-							if(cities.vertexSet.get(dest).adjList.isEmpty())
-								cities.vertexSet.remove(dest);
-							
-							System.out.println("Successfully removed path between " + source + " and " + dest + ".");
-							break;
-						}
-						System.out.println("Unable to find path.\n");
-					}
-					
-					catch(NullPointerException np)
+					// Remove the edge through history so it can be undone. A city left without
+					// connections is deleted with it to ensure Hamiltonian correctness.
+					if(!history().removeEdge(source, dest))
 					{
-						System.out.println("Unable to find city or path.\n" + np);
+						System.out.println("Unable to find city or path.\n");
 						System.out.println("\n|---------------------|\n");
 						continue;
 					}
+					System.out.println("Successfully removed path between " + source + " and " + dest + ".");
 					break;
 					
 				case 2: // Exit to main menu.
@@ -586,65 +617,66 @@ public class Main
 		}
 	}
 	
-	public static void undoRemove()
+	// Function to step back or forward through the changes made to the graph.
+	public static void undoChanges()
 	{
-		City<String> recover;
 		int choice;
-		
-		// Check if there is any data in undo stack.
-		if(undo.size() == 0)
-		{
-			System.out.println("No removals were done.");
-			System.out.println("\n|---------------------|\n");
-			return;
-		}
-		
-		System.out.println("Would you like to undo previous removal?: ");
-		System.out.println("	1. [Yes]");
-		System.out.println("	2. [No]");
-		System.out.print("\nPlease enter choice now: ");
-		choice = userScanner.nextInt();
-		userScanner.nextLine();
-		
-		if(choice == 1)
-		{
-			recover = undo.pop();
-			cities.addEdge(recover.source.getData(), recover.dest.getData(), recover.cost);
-			System.out.println("Undo successful: " + recover.toString());
-			System.out.println("\n|---------------------|\n");
-		}
-		else if(choice == 2)
-		{
-			System.out.println("\n|---------------------|\n");
-			return;
-		}
-		else
+		boolean exit = false;
+
+		while(!exit)
 		{
-			System.out.println("Invalid option selected. Returning to main menu.");
-			System.out.println("\n|---------------------|\n");
+			GraphHistory.Version<String> version = history().current();
+			System.out.println("{ Hamiltonian Circuit }");
+			System.out.println("{ Undo/Redo Changes }" + '\n');
+			System.out.println("|---------------------|" + '\n');
+			System.out.println("Current: " + version + '\n');
+			System.out.println("Please select an option below:" + '\n');
+			System.out.println("	1. [Undo Last Change]");
+			System.out.println("	2. [Redo Undone Change]");
+			System.out.println("	3. [Return to Menu]");
+			System.out.print("\nPlease enter choice now: ");
+			choice = userScanner.nextInt();
+			userScanner.nextLine();
+
+			if(choice == 1)
+			{
+				if(history().undo())
+					System.out.println("\nUndo successful: " + version.getDescription());
+				else
+					System.out.println("\nNo changes to undo.");
+				System.out.println("\n|---------------------|\n");
+			}
+			else if(choice == 2)
+			{
+				if(history().redo())
+					System.out.println("\nRedo successful: " + history().current().getDescription());
+				else
+					System.out.println("\nNo changes to redo.");
+				System.out.println("\n|---------------------|\n");
+			}
+			else if(choice == 3)
+			{
+				System.out.println("\n|---------------------|\n");
+				exit = true;
+			}
+			else
+				System.out.println("\nInvalid option entered, please try again.\n");
 		}
-		return;
 	}
 
-	public static Scanner openInputFile()
+	public static File openInputFile()
 	{
 		String filename;
-		Scanner scanner = null;
 
 		System.out.print("Enter the input filename: ");
 		filename = userScanner.nextLine();
 		File file = new File(filename);
 
-		try
-		{
-			scanner = new Scanner(file);
-		}
-		
-		catch(FileNotFoundException fe)
+		if(!file.isFile() || !file.canRead())
 		{
 			System.out.println("Can't open input file.\n");
 			return null;
 		}
-		return scanner;
+		return file;
 	}
 }
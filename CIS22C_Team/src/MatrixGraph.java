@@ -0,0 +1,43 @@
+/**
+ *
+ * Snapshot for complete and near-complete graphs: the CSR adjacency of CsrGraph
+ * plus a flat size*size cost matrix, so edge existence and cost lookups are O(1)
+ * instead of a scan of the neighbor range. Missing edges hold infinity.
+ *
+ * Graph.freeze() picks this layout when at least Graph.DENSE_THRESHOLD of all
+ * possible edges are present and the matrix stays within MAX_VERTICES.
+ *
+ */
+
+public class MatrixGraph<E> extends CsrGraph<E>
+{
+	// 4096 vertices make a 128 MB matrix.
+	public static final int MAX_VERTICES = 4096;
+
+	private final double[] matrix;
+
+	MatrixGraph(Graph<E> graph)
+	{
+		super(graph);
+		matrix = super.costMatrix();
+	}
+
+	@Override
+	public boolean hasEdge(int u, int v)
+	{
+		return matrix[u * size() + v] != Double.POSITIVE_INFINITY;
+	}
+
+	@Override
+	public double cost(int u, int v)
+	{
+		return matrix[u * size() + v];
+	}
+
+	// The snapshot's own matrix; callers must not modify it.
+	@Override
+	public double[] costMatrix()
+	{
+		return matrix;
+	}
+}
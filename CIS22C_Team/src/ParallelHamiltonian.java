@@ -0,0 +1,195 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *
+ * Subset dynamic programming Hamiltonian circuit search that evaluates each
+ * subset-size layer in parallel on a ForkJoinPool.
+ *
+ * The circuit is anchored at vertex 0 of the CsrGraph snapshot and every other vertex
+ * gets a bit. reach[mask] is the bitset of vertices k in mask such that some path
+ * leaves vertex 0, visits exactly mask and ends at k. A subset only reads the
+ * layer below it, so all subsets of one size are independent, and each one is
+ * written by exactly one task: the result does not depend on the parallelism
+ * level or the scheduling. The circuit is rebuilt by always taking the lowest
+ * numbered predecessor.
+ *
+ * It answers only whether a circuit exists, not which is cheapest, so Main and
+ * AnytimeSolver don't use it: for callers with many cores and small graphs
+ * where any circuit will do.
+ *
+ */
+
+public class ParallelHamiltonian<E> extends CircuitSolver<E>
+{
+	public static final int MAX_VERTICES = 26;
+
+	// Subsets per task before a layer range is evaluated sequentially.
+	private static final int THRESHOLD = 2048;
+
+	private final int parallelism;
+
+	public ParallelHamiltonian()
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public ParallelHamiltonian(int parallelism)
+	{
+		if(parallelism < 1)
+			throw new IllegalArgumentException("Parallelism must be at least 1.");
+		this.parallelism = parallelism;
+	}
+
+	public int getParallelism()
+	{
+		return parallelism;
+	}
+
+	boolean solve(CsrGraph<E> snapshot, List<Vertex<E>> cycleList)
+	{
+		int n = snapshot.size();
+		if(n == 0)
+			return false;
+		if(n > MAX_VERTICES)
+			throw new IllegalArgumentException("Subset search is limited to " + MAX_VERTICES + " vertices.");
+
+
+		if(n == 1)
+		{
+			// only a self loop can close a one city circuit
+			for(int e = snapshot.offsets[0]; e < snapshot.offsets[1]; e++)
+			{
+				if(snapshot.targets[e] == 0)
+				{
+					cycleList.add(snapshot.vertex(0));
+					cycleList.add(snapshot.vertex(0));
+					return true;
+				}
+			}
+			return false;
+		}
+
+		// neighbor bitsets over the non-start vertices (vertex k + 1 owns bit k)
+		int m = n - 1;
+		int startMask = 0;
+		int[] adjMask = new int[m];
+		for(int v = 0; v < n; v++)
+		{
+			for(int e = snapshot.offsets[v]; e < snapshot.offsets[v + 1]; e++)
+			{
+				int j = snapshot.targets[e];
+				if(j == 0)
+					continue;
+				if(v == 0)
+					startMask |= 1 << (j - 1);
+				else
+					adjMask[v - 1] |= 1 << (j - 1);
+			}
+		}
+
+		int[] reach = new int[1 << m];
+		int[] layerStart = new int[m + 2];
+		int[] order = subsetsBySize(m, layerStart);
+
+		for(int k = 0; k < m; k++)
+			reach[1 << k] = startMask & (1 << k);
+
+		long start = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try
+		{
+			for(int size = 2; size <= m; size++)
+				pool.invoke(new LayerTask(order, layerStart[size], layerStart[size + 1], reach, adjMask));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		metrics.addNodes(1L << m, m);
+		metrics.addPhase("subsets", System.nanoTime() - start);
+
+		int full = (1 << m) - 1;
+		int ends = reach[full] & startMask;
+		if(ends == 0)
+			return false;
+
+		// rebuild the path backwards from the lowest numbered closing vertex
+		int[] tour = new int[n];
+		int mask = full;
+		int last = Integer.numberOfTrailingZeros(ends);
+		for(int pos = m; pos > 0; pos--)
+		{
+			tour[pos] = last + 1;
+			mask ^= 1 << last;
+			if(pos > 1)
+				last = Integer.numberOfTrailingZeros(reach[mask] & adjMask[last]);
+		}
+
+		for(int i = 0; i < n; i++)
+			cycleList.add(snapshot.vertex(tour[i]));
+		cycleList.add(snapshot.vertex(0));
+		return true;
+	}
+
+	// All subsets of m bits ordered by size; subsets of size s occupy [layerStart[s], layerStart[s + 1]).
+	private static int[] subsetsBySize(int m, int[] layerStart)
+	{
+		int subsets = 1 << m;
+		int[] order = new int[subsets];
+
+		for(int mask = 0; mask < subsets; mask++)
+			layerStart[Integer.bitCount(mask) + 1]++;
+		for(int s = 1; s < layerStart.length; s++)
+			layerStart[s] += layerStart[s - 1];
+
+		int[] next = Arrays.copyOf(layerStart, layerStart.length);
+		for(int mask = 0; mask < subsets; mask++)
+			order[next[Integer.bitCount(mask)]++] = mask;
+		return order;
+	}
+
+	// Evaluates reach[] for a range of subsets that all have the same size.
+	private static class LayerTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int[] order, reach, adjMask;
+		private final int lo, hi;
+
+		LayerTask(int[] order, int lo, int hi, int[] reach, int[] adjMask)
+		{
+			this.order = order;
+			this.lo = lo;
+			this.hi = hi;
+			this.reach = reach;
+			this.adjMask = adjMask;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if(hi - lo > THRESHOLD)
+			{
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new LayerTask(order, lo, mid, reach, adjMask),
+						new LayerTask(order, mid, hi, reach, adjMask));
+				return;
+			}
+
+			for(int i = lo; i < hi; i++)
+			{
+				int mask = order[i];
+				int ends = 0;
+				for(int rest = mask; rest != 0; rest &= rest - 1)
+				{
+					int k = Integer.numberOfTrailingZeros(rest);
+					if((reach[mask ^ (1 << k)] & adjMask[k]) != 0)
+						ends |= 1 << k;
+				}
+				reach[mask] = ends;
+			}
+		}
+	}
+}
@@ -0,0 +1,211 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ *
+ * Parallel version of the Hamiltonian backtracking search.
+ *
+ * The first splitDepth levels of the search tree are turned into tasks on a
+ * work-stealing ForkJoinPool; below that each task runs the ordinary sequential
+ * backtracking with its own copy of the path and visited bitset. The first task
+ * to close a circuit publishes it, and every other task notices the published
+ * circuit within CHECK_INTERVAL search nodes and abandons its branch.
+ *
+ * Unlike Hamiltonian, the circuit returned is whichever one is found first, so
+ * it may differ between runs. Each worker thread counts its nodes in its own
+ * SolverMetrics.Counter, shared by the tasks it runs, so the tasks neither
+ * contend over the metrics nor allocate a counter each.
+ *
+ * Main and AnytimeSolver don't use it, since they need the cheapest circuit
+ * rather than any: for callers with many cores where any circuit will do.
+ *
+ */
+
+public class ParallelSearch<E> extends CircuitSolver<E>
+{
+	public static final int DEFAULT_SPLIT_DEPTH = 3;
+
+	// Search nodes a task expands between checks for a circuit found elsewhere.
+	private static final int CHECK_INTERVAL = 1024;
+
+	private final int parallelism;
+	private final int splitDepth;
+
+	public ParallelSearch()
+	{
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_SPLIT_DEPTH);
+	}
+
+	public ParallelSearch(int parallelism, int splitDepth)
+	{
+		if(parallelism < 1)
+			throw new IllegalArgumentException("Parallelism must be at least 1.");
+		if(splitDepth < 0)
+			throw new IllegalArgumentException("Split depth can't be negative.");
+		this.parallelism = parallelism;
+		this.splitDepth = splitDepth;
+	}
+
+	boolean solve(CsrGraph<E> snapshot, List<Vertex<E>> cycleList)
+	{
+		int n = snapshot.size();
+		if(n == 0)
+			return false;
+
+		long start = System.nanoTime();
+		AtomicReference<int[]> found = new AtomicReference<int[]>();
+
+		// one counter per worker thread, flushed once the pool is done
+		List<SolverMetrics.Counter> all = Collections.synchronizedList(new ArrayList<SolverMetrics.Counter>());
+		ThreadLocal<SolverMetrics.Counter> counters = ThreadLocal.withInitial(() ->
+		{
+			SolverMetrics.Counter counter = metrics.counter(n);
+			all.add(counter);
+			return counter;
+		});
+
+		int[] path = new int[n];
+		long[] visited = new long[(n + 63) >>> 6];
+		visited[0] = 1L;
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try
+		{
+			pool.invoke(new SearchTask<E>(snapshot, found, counters, splitDepth, path, visited, 0));
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+		for(SolverMetrics.Counter counter : all)
+			counter.flush();
+		metrics.addPhase("search", System.nanoTime() - start);
+
+		int[] cycle = found.get();
+		if(cycle == null)
+			return false;
+
+		for(int i = 0; i < n; i++)
+			cycleList.add(snapshot.vertex(cycle[i]));
+		cycleList.add(snapshot.vertex(0));
+		return true;
+	}
+
+	// Searches every extension of path[0..depth], forking while above the split depth.
+	private static class SearchTask<E> extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final CsrGraph<E> snapshot;
+		private final AtomicReference<int[]> found;
+		private final ThreadLocal<SolverMetrics.Counter> counters;
+		private final int splitDepth;
+		private final int[] path;
+		private final long[] visited;
+		private final int depth;
+		private int sinceCheck;
+
+		SearchTask(CsrGraph<E> snapshot, AtomicReference<int[]> found, ThreadLocal<SolverMetrics.Counter> counters, int splitDepth, int[] path, long[] visited, int depth)
+		{
+			this.snapshot = snapshot;
+			this.found = found;
+			this.counters = counters;
+			this.splitDepth = splitDepth;
+			this.path = path;
+			this.visited = visited;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if(found.get() != null)
+				return;
+			SolverMetrics.Counter counter = counters.get();
+			if(depth >= splitDepth)
+				backtrack(depth, counter);
+			else
+				fork(counter);
+		}
+
+		// Hands each unvisited neighbor of the path's end to a task of its own.
+		private void fork(SolverMetrics.Counter counter)
+		{
+			counter.node(depth);
+
+			int currV = path[depth];
+			int graphSize = path.length;
+			List<SearchTask<E>> branches = new ArrayList<SearchTask<E>>();
+
+			for(int e = snapshot.offsets[currV]; e < snapshot.offsets[currV + 1]; e++)
+			{
+				int next = snapshot.targets[e];
+				if(next == 0 && graphSize == depth + 1)
+				{
+					found.compareAndSet(null, path.clone());
+					return;
+				}
+				if((visited[next >>> 6] & (1L << next)) == 0)
+				{
+					// each branch gets its own copy of the search state
+					int[] branchPath = path.clone();
+					long[] branchVisited = visited.clone();
+					branchPath[depth + 1] = next;
+					branchVisited[next >>> 6] |= 1L << next;
+					branches.add(new SearchTask<E>(snapshot, found, counters, splitDepth, branchPath, branchVisited, depth + 1));
+				}
+			}
+			invokeAll(branches);
+		}
+
+		// Sequential backtracking below the split depth from path[0..base], all of it
+		// already visited, using an explicit stack instead of recursion.
+		private void backtrack(int base, SolverMetrics.Counter counter)
+		{
+			int graphSize = path.length;
+			int[] offsets = snapshot.offsets;
+			int[] targets = snapshot.targets;
+			int[] cursor = new int[graphSize];
+			int depth = base;
+			cursor[base] = offsets[path[base]];
+			counter.node(base);
+
+			while(depth >= base)
+			{
+				if(++sinceCheck == CHECK_INTERVAL)
+				{
+					sinceCheck = 0;
+					counter.flush();
+					if(found.get() != null)
+						return; // another task finished first
+				}
+
+				int currV = path[depth];
+				if(cursor[depth] == offsets[currV + 1])
+				{
+					if(depth > base)
+						visited[currV >>> 6] &= ~(1L << currV);
+					--depth;
+					counter.backtrack();
+					continue;
+				}
+
+				int next = targets[cursor[depth]++];
+				if(next == 0 && graphSize == depth + 1)
+				{
+					found.compareAndSet(null, path.clone());
+					return;
+				}
+				if((visited[next >>> 6] & (1L << next)) == 0)
+				{
+					path[++depth] = next;
+					cursor[depth] = offsets[next];
+					visited[next >>> 6] |= 1L << next;
+					counter.node(depth);
+				}
+			}
+		}
+	}
+}
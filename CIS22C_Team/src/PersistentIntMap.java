@@ -0,0 +1,216 @@
+import java.util.*;
+
+/**
+ *
+ * Immutable map from int keys to values; put and remove return a new map and
+ * leave this one as it was.
+ *
+ * The map is a trie over the key's bits, five at a time from the lowest, with
+ * each node keeping only its occupied slots (a bitmap says which). An update
+ * copies the nodes on the path to its key, at most seven, and shares the rest
+ * with the old map, so old and new versions cost little more than one of them
+ * and can be read from any thread.
+ *
+ */
+
+public final class PersistentIntMap<V>
+{
+	private static final PersistentIntMap<Object> EMPTY = new PersistentIntMap<>(new Node(0, new Object[0]), 0);
+
+	private final Node root;
+	private final int size;
+
+	private PersistentIntMap(Node root, int size)
+	{
+		this.root = root;
+		this.size = size;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <V> PersistentIntMap<V> empty()
+	{
+		return (PersistentIntMap<V>)EMPTY;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	public boolean containsKey(int key)
+	{
+		return get(key) != null;
+	}
+
+	// value for key, or null if there is none
+	@SuppressWarnings("unchecked")
+	public V get(int key)
+	{
+		Node node = root;
+		for(int shift = 0; ; shift += 5)
+		{
+			int bit = 1 << ((key >>> shift) & 31);
+			if((node.bitmap & bit) == 0)
+				return null;
+			Object slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+			if(slot instanceof Leaf)
+			{
+				Leaf leaf = (Leaf)slot;
+				return leaf.key == key ? (V)leaf.value : null;
+			}
+			node = (Node)slot;
+		}
+	}
+
+	// this map with key mapped to value (not null)
+	public PersistentIntMap<V> put(int key, V value)
+	{
+		if(value == null)
+			throw new NullPointerException("PersistentIntMap values can't be null.");
+		boolean[] added = new boolean[1];
+		Node updated = put(root, 0, key, value, added);
+		return updated == root ? this : new PersistentIntMap<>(updated, added[0] ? size + 1 : size);
+	}
+
+	// this map without key
+	public PersistentIntMap<V> remove(int key)
+	{
+		Object updated = remove(root, 0, key);
+		if(updated == root)
+			return this;
+		if(updated == null)
+			return empty();
+		if(updated instanceof Leaf)
+			updated = new Node(1 << (((Leaf)updated).key & 31), new Object[] { updated });
+		return new PersistentIntMap<>((Node)updated, size - 1);
+	}
+
+	// keys in no particular order
+	public int[] keys()
+	{
+		int[] keys = new int[size];
+		int[] count = new int[1];
+		collect(root, keys, count);
+		return keys;
+	}
+
+	private static Node put(Node node, int shift, int key, Object value, boolean[] added)
+	{
+		int bit = 1 << ((key >>> shift) & 31);
+		int index = Integer.bitCount(node.bitmap & (bit - 1));
+		if((node.bitmap & bit) == 0)
+		{
+			added[0] = true;
+			Object[] slots = new Object[node.slots.length + 1];
+			System.arraycopy(node.slots, 0, slots, 0, index);
+			slots[index] = new Leaf(key, value);
+			System.arraycopy(node.slots, index, slots, index + 1, node.slots.length - index);
+			return new Node(node.bitmap | bit, slots);
+		}
+
+		Object slot = node.slots[index];
+		Object replacement;
+		if(slot instanceof Node)
+		{
+			replacement = put((Node)slot, shift + 5, key, value, added);
+			if(replacement == slot)
+				return node;
+		}
+		else if(((Leaf)slot).key == key)
+		{
+			if(((Leaf)slot).value.equals(value))
+				return node;
+			replacement = new Leaf(key, value);
+		}
+		else
+		{
+			// two keys share this slot; push both a level down, where they differ sooner or later
+			added[0] = true;
+			Leaf other = (Leaf)slot;
+			Node split = new Node(1 << ((other.key >>> (shift + 5)) & 31), new Object[] { other });
+			replacement = put(split, shift + 5, key, value, added);
+		}
+		Object[] slots = node.slots.clone();
+		slots[index] = replacement;
+		return new Node(node.bitmap, slots);
+	}
+
+	// node without key: node itself if key isn't there, null if nothing is
+	// left, or a lone Leaf for the parent to hold directly
+	private static Object remove(Node node, int shift, int key)
+	{
+		int bit = 1 << ((key >>> shift) & 31);
+		if((node.bitmap & bit) == 0)
+			return node;
+		int index = Integer.bitCount(node.bitmap & (bit - 1));
+		Object slot = node.slots[index];
+		Object replacement;
+		if(slot instanceof Node)
+		{
+			replacement = remove((Node)slot, shift + 5, key);
+			if(replacement == slot)
+				return node;
+		}
+		else if(((Leaf)slot).key == key)
+			replacement = null;
+		else
+			return node;
+
+		if(replacement != null)
+		{
+			if(node.slots.length == 1 && replacement instanceof Leaf)
+				return replacement;
+			Object[] slots = node.slots.clone();
+			slots[index] = replacement;
+			return new Node(node.bitmap, slots);
+		}
+		if(node.slots.length == 1)
+			return null;
+		if(node.slots.length == 2 && node.slots[1 - index] instanceof Leaf)
+			return node.slots[1 - index];
+		Object[] slots = new Object[node.slots.length - 1];
+		System.arraycopy(node.slots, 0, slots, 0, index);
+		System.arraycopy(node.slots, index + 1, slots, index, slots.length - index);
+		return new Node(node.bitmap & ~bit, slots);
+	}
+
+	private static void collect(Node node, int[] keys, int[] count)
+	{
+		for(Object slot : node.slots)
+		{
+			if(slot instanceof Leaf)
+				keys[count[0]++] = ((Leaf)slot).key;
+			else
+				collect((Node)slot, keys, count);
+		}
+	}
+
+	private static final class Node
+	{
+		final int bitmap;
+		final Object[] slots; // Leaf or Node for each set bit, lowest bit first
+
+		Node(int bitmap, Object[] slots)
+		{
+			this.bitmap = bitmap;
+			this.slots = slots;
+		}
+	}
+
+	private static final class Leaf
+	{
+		final int key;
+		final Object value;
+
+		Leaf(int key, Object value)
+		{
+			this.key = key;
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,282 @@
+import java.util.*;
+
+/**
+ *
+ * Backtracking search for a Hamiltonian circuit that, unlike Hamiltonian, looks
+ * ahead before each step and orders its branches.
+ *
+ * The circuit is grown as one path from vertex 0. A vertex off the path can
+ * still use its unvisited neighbors, the path's current end and the start as
+ * circuit neighbors; these are its options. After each step:
+ *
+ *   - the search backs up if any vertex next to the old end now has fewer than
+ *     two options, or if the start has no unvisited neighbor left to close the
+ *     circuit with,
+ *   - a neighbor of the end with exactly two options must be the next vertex
+ *     (both its edges are forced); two such neighbors mean a dead end. The
+ *     start is the exception, with room for two more edges,
+ *   - otherwise neighbors are tried fewest options first (Warnsdorff's rule).
+ *
+ * Edges that would close a cycle early never come up: the only vertex on the
+ * path a step could return to is the start, and that is tried only to close
+ * the full circuit.
+ *
+ */
+
+public class PrunedSearch<E> extends CircuitSolver<E>
+{
+	// Search nodes between checks of the time limit.
+	private static final int CHECK_INTERVAL = 4096;
+
+	private long timeLimit;
+	private boolean timedOut;
+	private String reason;
+	private long nodes;
+	private SolverMetrics.Counter counter;
+
+	// search state
+	private int n;
+	private int[] offsets, targets;
+	private boolean[] visited, nearStart;
+	private int[] free;       // unvisited neighbors of each vertex
+	private int[] nearEnd;    // == mark for the neighbors of the current end
+	private int mark;
+	private boolean endIsStart;
+	private int[] path;
+	private int[] cand, candNext, candEnd;
+
+	// Limits each solve to the given number of milliseconds, 0 for no limit.
+	public void setTimeLimit(long millis)
+	{
+		if(millis < 0)
+			throw new IllegalArgumentException("Time limit can't be negative.");
+		timeLimit = millis;
+	}
+
+	// True if the last solve ran out of time; its false answer then proves nothing.
+	public boolean isTimedOut()
+	{
+		return timedOut;
+	}
+
+	// Why the last solve found no circuit without searching (see Feasibility), or null.
+	public String getReason()
+	{
+		return reason;
+	}
+
+	// Search nodes expanded by the last solve.
+	public long getNodeCount()
+	{
+		return nodes;
+	}
+
+	boolean solve(CsrGraph<E> snapshot, List<Vertex<E>> cycleList)
+	{
+		timedOut = false;
+		reason = null;
+		nodes = 0;
+		if(snapshot.size() == 0)
+			return false;
+
+		long start = System.nanoTime();
+		reason = Feasibility.check(snapshot);
+		metrics.addPhase("feasibility", System.nanoTime() - start);
+		if(reason != null)
+			return false;
+
+		n = snapshot.size();
+		boolean found;
+		if(n < 3)
+			found = snapshot.hasEdge(0, n - 1); // a loop, or the single edge used both ways
+		else
+		{
+			start = System.nanoTime();
+			setUp(snapshot);
+			counter = metrics.counter(n);
+			found = search(snapshot);
+			counter.flush();
+			counter = null;
+			metrics.addPhase("search", System.nanoTime() - start);
+		}
+		if(!found)
+			return false;
+
+		if(n < 3)
+			path = new int[] { 0, n - 1 };
+		for(int i = 0; i < n; i++)
+			cycleList.add(snapshot.vertex(path[i]));
+		cycleList.add(snapshot.vertex(0));
+		return true;
+	}
+
+	private void setUp(CsrGraph<E> snapshot)
+	{
+		offsets = snapshot.offsets;
+		targets = snapshot.targets;
+		visited = new boolean[n];
+		nearStart = new boolean[n];
+		free = new int[n];
+		nearEnd = new int[n];
+		mark = 0;
+		path = new int[n];
+		cand = new int[targets.length];
+		candNext = new int[n];
+		candEnd = new int[n];
+
+		for(int v = 0; v < n; v++)
+		{
+			for(int e = offsets[v]; e < offsets[v + 1]; e++)
+			{
+				if(targets[e] != v)
+					++free[v];
+			}
+		}
+		for(int e = offsets[0]; e < offsets[1]; e++)
+			nearStart[targets[e]] = true;
+	}
+
+	private boolean search(CsrGraph<E> snapshot)
+	{
+		long deadline = timeLimit > 0 ? System.nanoTime() + timeLimit * 1000000L : Long.MAX_VALUE;
+		int sinceCheck = 0;
+		int depth = 0;
+
+		path[0] = 0;
+		visit(0);
+		counter.node(0);
+		if(!expand(0))
+			return false;
+
+		while(true)
+		{
+			if(candNext[depth] == candEnd[depth])
+			{
+				// every branch from here failed, back up
+				if(depth == 0)
+					return false;
+				unvisit(path[depth--]);
+				counter.backtrack();
+				continue;
+			}
+
+			if(++sinceCheck == CHECK_INTERVAL)
+			{
+				sinceCheck = 0;
+				counter.flush();
+				if(System.nanoTime() > deadline)
+				{
+					timedOut = true;
+					return false;
+				}
+			}
+
+			int w = cand[candNext[depth]++];
+			path[++depth] = w;
+			visit(w);
+			++nodes;
+			counter.node(depth);
+			if(depth == n - 1)
+			{
+				if(snapshot.hasEdge(w, 0))
+					return true;
+			}
+			else if(expand(depth))
+				continue;
+			else
+				counter.prune();
+			unvisit(path[depth--]);
+			counter.backtrack();
+		}
+	}
+
+	// Checks the vertices around the new end path[depth] and lists its branches; false if none can work.
+	private boolean expand(int depth)
+	{
+		int v = path[depth];
+		int base = depth == 0 ? 0 : candEnd[depth - 1];
+		candNext[depth] = candEnd[depth] = base;
+
+		if(free[0] == 0)
+			return false; // nothing left to close the circuit through
+
+		++mark;
+		endIsStart = depth == 0;
+		for(int e = offsets[v]; e < offsets[v + 1]; e++)
+			nearEnd[targets[e]] = mark;
+
+		// the old end is inside the path now, so its unvisited neighbors lost an option
+		if(depth > 0)
+		{
+			int u = path[depth - 1];
+			for(int e = offsets[u]; e < offsets[u + 1]; e++)
+			{
+				int w = targets[e];
+				if(!visited[w] && options(w) < 2)
+					return false;
+			}
+		}
+
+		int forced = -1;
+		int count = 0;
+		for(int e = offsets[v]; e < offsets[v + 1]; e++)
+		{
+			int w = targets[e];
+			if(visited[w])
+				continue;
+			int options = options(w);
+			if(options < 2)
+				return false;
+			if(options == 2 && depth > 0)
+			{
+				if(forced >= 0)
+					return false; // the end can't continue to both
+				forced = w;
+			}
+
+			// insertion by options, fewest first
+			int i = base + count++;
+			while(i > base && free[cand[i - 1]] > free[w])
+			{
+				cand[i] = cand[i - 1];
+				--i;
+			}
+			cand[i] = w;
+		}
+
+		if(forced >= 0)
+		{
+			counter.prune(count - 1); // the other branches can't lead anywhere
+			cand[base] = forced;
+			count = 1;
+		}
+		candEnd[depth] = base + count;
+		return count > 0;
+	}
+
+	// Circuit neighbors still open to the unvisited vertex w.
+	private int options(int w)
+	{
+		return free[w] + (nearEnd[w] == mark ? 1 : 0) + (nearStart[w] && !endIsStart ? 1 : 0);
+	}
+
+	private void visit(int v)
+	{
+		visited[v] = true;
+		for(int e = offsets[v]; e < offsets[v + 1]; e++)
+		{
+			if(targets[e] != v)
+				--free[targets[e]];
+		}
+	}
+
+	private void unvisit(int v)
+	{
+		visited[v] = false;
+		for(int e = offsets[v]; e < offsets[v + 1]; e++)
+		{
+			if(targets[e] != v)
+				++free[targets[e]];
+		}
+	}
+}
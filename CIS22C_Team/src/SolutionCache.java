@@ -0,0 +1,128 @@
+import java.util.*;
+
+/**
+ *
+ * Remembers the last solve of a graph, keyed by graph version, and reuses it
+ * after small edits instead of solving from scratch.
+ *
+ * lookup() replays the graph's edits since the stored version (Graph.editsSince):
+ *
+ *   - a removed edge that isn't on the circuit leaves it valid, and leaves an
+ *     optimal circuit optimal (removing edges never makes circuits cheaper);
+ *     a graph with no circuit keeps having none,
+ *   - an added edge leaves the circuit valid but maybe no longer the cheapest.
+ *     Graphs small enough for HeldKarp get solved exactly again; on larger
+ *     ones LocalSearch repairs it for up to REPAIR_MILLIS and it is no longer
+ *     claimed optimal,
+ *   - anything else (a circuit edge removed, vertices added or removed, a
+ *     reload, or edits older than the log) means a full solve: lookup() returns
+ *     null.
+ *
+ * Results that timed out without a circuit are not stored.
+ *
+ */
+
+public class SolutionCache<E>
+{
+	// Time local search gets to use newly added edges.
+	public static final long REPAIR_MILLIS = 1000;
+
+	private Graph<E> graph;
+	private long version;
+	private SolveResult<E> result;
+	private int[] tour; // vertex ids of the stored circuit, null if none
+
+	// Stores result as the solution for graph in its current version.
+	public void store(Graph<E> graph, SolveResult<E> result)
+	{
+		if(result.getStatus() == SolveResult.Status.TIMEOUT)
+		{
+			clear();
+			return;
+		}
+
+		this.graph = graph;
+		version = graph.getVersion();
+		this.result = result;
+		tour = null;
+		if(result.hasCycle())
+		{
+			List<Vertex<E>> cycle = result.getCycle();
+			tour = new int[cycle.size() - 1];
+			for(int i = 0; i < tour.length; i++)
+				tour[i] = cycle.get(i).id;
+		}
+	}
+
+	public void clear()
+	{
+		graph = null;
+		result = null;
+		tour = null;
+	}
+
+	// Stored solution brought up to date with graph's edits, or null if graph needs a full solve.
+	public SolveResult<E> lookup(Graph<E> graph)
+	{
+		if(graph != this.graph || result == null)
+			return null;
+		if(graph.getVersion() == version)
+			return result;
+
+		List<GraphEdit> edits = graph.editsSince(version);
+		if(edits == null)
+			return null;
+
+		boolean added = false;
+		for(GraphEdit edit : edits)
+		{
+			if(edit.kind == GraphEdit.Kind.EDGE_REMOVED)
+			{
+				if(tour != null && onTour(edit.source, edit.dest))
+					return null;
+			}
+			else if(edit.kind == GraphEdit.Kind.EDGE_ADDED && tour != null)
+				added = true;
+			else
+				return null;
+		}
+
+		if(added && graph.freeze().size() <= HeldKarp.MAX_VERTICES)
+			return null; // an exact solve is cheaper than losing optimality
+		if(added)
+			store(graph, repair(graph));
+		else
+			version = graph.getVersion();
+		return result;
+	}
+
+	private boolean onTour(int a, int b)
+	{
+		for(int i = 0; i < tour.length; i++)
+		{
+			int next = tour[(i + 1) % tour.length];
+			if((tour[i] == a && next == b) || (tour[i] == b && next == a))
+				return true;
+		}
+		return false;
+	}
+
+	// The stored circuit, improved with whatever the added edges allow.
+	private SolveResult<E> repair(Graph<E> graph)
+	{
+		long start = System.nanoTime();
+		CsrGraph<E> snapshot = graph.freeze();
+		int[] circuit = new int[tour.length];
+		for(int i = 0; i < tour.length; i++)
+			circuit[i] = snapshot.indexOfId(tour[i]);
+
+		double cost = circuit.length < 4 ? TourHeuristics.tourCost(snapshot, circuit)
+				: new LocalSearch<E>().improve(snapshot, circuit, start + REPAIR_MILLIS * 1000000L);
+
+		List<Vertex<E>> cycle = new ArrayList<>(circuit.length + 1);
+		for(int v : circuit)
+			cycle.add(snapshot.vertex(v));
+		cycle.add(snapshot.vertex(circuit[0]));
+		return new SolveResult<E>(SolveResult.Status.FEASIBLE, cycle, cost, Double.NaN, (System.nanoTime() - start) / 1000000L, null);
+	}
+}
@@ -0,0 +1,16 @@
+import java.util.*;
+
+/**
+ *
+ * Receives each better circuit an anytime solve finds, as soon as it is found.
+ *
+ * The cycle is in the solveHamil format (starting vertex repeated at the end) and
+ * may not be modified. Calls come from the solving thread, so a listener should
+ * return quickly.
+ *
+ */
+
+public interface SolutionListener<E>
+{
+	public void improved(List<Vertex<E>> cycle, double cost);
+}
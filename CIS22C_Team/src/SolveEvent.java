@@ -0,0 +1,78 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ *
+ * Java Flight Recorder event for one solveHamil call, e.g. recorded with
+ *
+ *   java -XX:StartFlightRecording=filename=solve.jfr Main
+ *
+ * and read with "jfr print --events cis22c.Solve solve.jfr" or JDK Mission
+ * Control. When no recording is running, start() and finish() cost two small
+ * objects (this event and SolverStats' record of the solve) and a few counter
+ * updates.
+ *
+ * The counts are those of the solve's SolverMetrics, so for metrics shared by
+ * several solves they include the solves before it.
+ *
+ */
+
+@Name("cis22c.Solve")
+@Label("Hamiltonian Solve")
+@Category("CIS22C")
+@Description("One run of a Hamiltonian circuit solver")
+public class SolveEvent extends Event
+{
+	@Label("Solver")
+	String solver;
+
+	@Label("Cities")
+	int vertices;
+
+	@Label("Circuit Found")
+	boolean found;
+
+	@Label("Nodes")
+	long nodes;
+
+	@Label("Backtracks")
+	long backtracks;
+
+	@Label("Prunes")
+	long prunes;
+
+	@Label("Max Depth")
+	int maxDepth;
+
+	private transient long startNanos;
+
+	// Marks the start of a solve by the named solver.
+	static SolveEvent start(String solver)
+	{
+		SolveEvent event = new SolveEvent();
+		event.solver = solver;
+		event.startNanos = System.nanoTime();
+		event.begin();
+		return event;
+	}
+
+	// Marks the end of the solve: records the event if a recording wants it, and adds the solve to SolverStats.
+	void finish(SolverMetrics metrics, int vertices, boolean found)
+	{
+		end();
+		SolverStats.get().solved(solver, vertices, found, System.nanoTime() - startNanos, metrics);
+		if(shouldCommit())
+		{
+			this.vertices = vertices;
+			this.found = found;
+			nodes = metrics.getNodes();
+			backtracks = metrics.getBacktracks();
+			prunes = metrics.getPrunes();
+			maxDepth = metrics.getMaxDepth();
+			commit();
+		}
+	}
+}
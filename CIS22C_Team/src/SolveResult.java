@@ -0,0 +1,93 @@
+import java.util.*;
+
+/**
+ *
+ * Outcome of an AnytimeSolver run: the best circuit found, its cost, and how
+ * much is known about it.
+ *
+ *   OPTIMAL     the circuit is proven to be the cheapest one
+ *   FEASIBLE    a circuit was found, but not proven optimal
+ *   TIMEOUT     the time ran out before any circuit was found
+ *   INFEASIBLE  the graph is proven to have no Hamiltonian circuit
+ *
+ */
+
+public class SolveResult<E>
+{
+	public enum Status { OPTIMAL, FEASIBLE, TIMEOUT, INFEASIBLE }
+
+	private final Status status;
+	private final List<Vertex<E>> cycle;
+	private final double cost;
+	private final double lowerBound;
+	private final long elapsedMillis;
+	private final String reason;
+	private final SolverMetrics metrics;
+
+	SolveResult(Status status, List<Vertex<E>> cycle, double cost, double lowerBound, long elapsedMillis, String reason)
+	{
+		this(status, cycle, cost, lowerBound, elapsedMillis, reason, null);
+	}
+
+	SolveResult(Status status, List<Vertex<E>> cycle, double cost, double lowerBound, long elapsedMillis, String reason, SolverMetrics metrics)
+	{
+		this.status = status;
+		this.cycle = cycle == null ? Collections.<Vertex<E>>emptyList() : Collections.unmodifiableList(cycle);
+		this.cost = cost;
+		this.lowerBound = lowerBound;
+		this.elapsedMillis = elapsedMillis;
+		this.reason = reason;
+		this.metrics = metrics != null ? metrics : new SolverMetrics();
+	}
+
+	public Status getStatus()
+	{
+		return status;
+	}
+
+	// True if there is a circuit, i.e. the status is OPTIMAL or FEASIBLE.
+	public boolean hasCycle()
+	{
+		return !cycle.isEmpty();
+	}
+
+	// The best circuit in the solveHamil format, or an empty list.
+	public List<Vertex<E>> getCycle()
+	{
+		return cycle;
+	}
+
+	// Cost of the circuit, or NaN if there is none.
+	public double getCost()
+	{
+		return cost;
+	}
+
+	// Proven lower bound on the cheapest circuit's cost, or NaN if none is known.
+	public double getLowerBound()
+	{
+		return lowerBound;
+	}
+
+	public long getElapsedMillis()
+	{
+		return elapsedMillis;
+	}
+
+	// Why there is no circuit, when the status is INFEASIBLE; otherwise null.
+	public String getReason()
+	{
+		return reason;
+	}
+
+	// What the search did to get here; all zero if no search ran.
+	public SolverMetrics getMetrics()
+	{
+		return metrics;
+	}
+
+	public String toString()
+	{
+		return status + (hasCycle() ? ", cost " + cost : "") + (reason != null ? " (" + reason + ")" : "") + " after " + elapsedMillis + " ms";
+	}
+}
@@ -0,0 +1,184 @@
+import java.util.*;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * Statistics of one solve, or of several solves or solver threads sharing it
+ * (see setMetrics on the solvers):
+ *
+ *   nodes       search nodes expanded (partial paths tried)
+ *   backtracks  times the search gave up on a node and backed up
+ *   prunes      branches cut off before they were searched: by a cost bound,
+ *               a forced edge or a look-ahead test
+ *   max depth   longest partial path reached
+ *   depths      nodes expanded at each depth, from which the shape of the
+ *               search tree can be read
+ *   phases      time spent in each named phase of the solve
+ *
+ * A search thread never touches these directly. It counts in its own Counter,
+ * plain fields with no synchronization, and flushes it every few thousand
+ * nodes into the LongAdders here, which spread concurrent updates over
+ * separate cells. That keeps the cost low enough to leave on, and the totals
+ * are at most one flush behind while a search is still running. Every flush
+ * also goes to the process-wide SolverStats.
+ *
+ */
+
+public class SolverMetrics
+{
+	private final LongAdder nodes = new LongAdder();
+	private final LongAdder backtracks = new LongAdder();
+	private final LongAdder prunes = new LongAdder();
+	private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+
+	// guarded by this; only touched on flushes and phase ends
+	private long[] depths = new long[0];
+	private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+
+	// Counter for one search thread on a graph of the given number of vertices.
+	Counter counter(int vertices)
+	{
+		return new Counter(this, vertices);
+	}
+
+	// Adds nanos to the time spent in phase.
+	synchronized void addPhase(String phase, long nanos)
+	{
+		phaseNanos.merge(phase, nanos, Long::sum);
+	}
+
+	// Adds the nodes of a search that has no Counter, e.g. the states of a dynamic program.
+	void addNodes(long count, int depth)
+	{
+		nodes.add(count);
+		maxDepth.accumulate(depth);
+		SolverStats.get().add(count, 0, 0, depth);
+	}
+
+	public long getNodes()
+	{
+		return nodes.sum();
+	}
+
+	public long getBacktracks()
+	{
+		return backtracks.sum();
+	}
+
+	public long getPrunes()
+	{
+		return prunes.sum();
+	}
+
+	public int getMaxDepth()
+	{
+		return (int)maxDepth.get();
+	}
+
+	// Nodes expanded at each depth; empty if the solver doesn't count depths.
+	public synchronized long[] getDepthHistogram()
+	{
+		return depths.clone();
+	}
+
+	// Time spent in each phase so far, in milliseconds, in the order the phases started.
+	public synchronized Map<String, Double> getPhaseMillis()
+	{
+		Map<String, Double> millis = new LinkedHashMap<>();
+		for(Map.Entry<String, Long> phase : phaseNanos.entrySet())
+			millis.put(phase.getKey(), phase.getValue() / 1e6);
+		return Collections.unmodifiableMap(millis);
+	}
+
+	// Adds counts[from .. to - 1] to the nodes at those depths.
+	private synchronized void addDepths(long[] counts, int from, int to)
+	{
+		if(depths.length < to)
+			depths = Arrays.copyOf(depths, Math.max(to, counts.length));
+		for(int d = from; d < to; d++)
+			depths[d] += counts[d];
+	}
+
+	public String toString()
+	{
+		StringBuilder text = new StringBuilder();
+		text.append(getNodes()).append(" nodes, ").append(getBacktracks()).append(" backtracks, ")
+				.append(getPrunes()).append(" prunes, max depth ").append(getMaxDepth());
+		for(Map.Entry<String, Double> phase : getPhaseMillis().entrySet())
+			text.append(String.format("; %s %.1f ms", phase.getKey(), phase.getValue()));
+		return text.toString();
+	}
+
+	/**
+	 *
+	 * Counts of one search thread since its last flush. Not thread-safe; each
+	 * thread needs its own.
+	 *
+	 * It keeps the range of depths counted since the last flush, so a flush
+	 * walks only those rather than the whole histogram, and searches that flush
+	 * often on large graphs (BranchAndBound checks its deadline every node once
+	 * nodes get slow) don't pay O(n) a time.
+	 *
+	 */
+
+	static final class Counter
+	{
+		private final SolverMetrics metrics;
+		private long backtracks, prunes;
+		private final long[] depths; // nodes per depth; their sum is the node count
+		private int low = Integer.MAX_VALUE, high = -1; // depths counted since the last flush
+
+		private Counter(SolverMetrics metrics, int vertices)
+		{
+			this.metrics = metrics;
+			depths = new long[vertices + 1];
+		}
+
+		void node(int depth)
+		{
+			++depths[depth];
+			if(depth < low)
+				low = depth;
+			if(depth > high)
+				high = depth;
+		}
+
+		void backtrack()
+		{
+			++backtracks;
+		}
+
+		void prune()
+		{
+			++prunes;
+		}
+
+		void prune(long count)
+		{
+			prunes += count;
+		}
+
+		// Hands the counts to the shared metrics and starts over from zero.
+		void flush()
+		{
+			long nodes = 0;
+			int maxDepth = Math.max(high, 0);
+			for(int d = low; d <= high; d++)
+				nodes += depths[d];
+			metrics.nodes.add(nodes);
+			metrics.backtracks.add(backtracks);
+			metrics.prunes.add(prunes);
+			metrics.maxDepth.accumulate(maxDepth);
+			if(high >= 0)
+			{
+				metrics.addDepths(depths, low, high + 1);
+				Arrays.fill(depths, low, high + 1, 0);
+			}
+			SolverStats.get().add(nodes, backtracks, prunes, maxDepth);
+			backtracks = prunes = 0;
+			low = Integer.MAX_VALUE;
+			high = -1;
+		}
+	}
+}
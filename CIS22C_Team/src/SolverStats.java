@@ -0,0 +1,156 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ *
+ * Totals over every solve in this process, which can be published as a JMX
+ * MBean so a long running solve can be watched from outside (e.g. with
+ * JConsole). The search counters move while a solve is running, as its threads
+ * flush their counts (see SolverMetrics); solves, circuits and time are added
+ * when it ends.
+ *
+ * The MBean is registered, the first time any solver reports, only if the
+ * program runs with
+ *
+ *   java -Dcis22c.jmx=true Main
+ *
+ * and if the platform MBean server refuses it, the totals are still kept.
+ *
+ */
+
+public class SolverStats implements SolverStatsMBean
+{
+	public static final String NAME = "cis22c:type=SolverStats";
+	// system property that, set to true, registers the MBean
+	public static final String JMX_PROPERTY = "cis22c.jmx";
+
+	private static final SolverStats INSTANCE = Boolean.getBoolean(JMX_PROPERTY) ? register(new SolverStats()) : new SolverStats();
+
+	private final LongAdder solves = new LongAdder();
+	private final LongAdder circuits = new LongAdder();
+	private final LongAdder nodes = new LongAdder();
+	private final LongAdder backtracks = new LongAdder();
+	private final LongAdder prunes = new LongAdder();
+	private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+	private final LongAdder solveNanos = new LongAdder();
+	private volatile LastSolve lastSolve; // null before the first, or after reset()
+
+	private SolverStats()
+	{
+	}
+
+	public static SolverStats get()
+	{
+		return INSTANCE;
+	}
+
+	private static SolverStats register(SolverStats stats)
+	{
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().registerMBean(stats, new ObjectName(NAME));
+		}
+		catch(JMException | SecurityException e)
+		{
+			// not visible over JMX, but still counting
+		}
+		return stats;
+	}
+
+	void add(long nodes, long backtracks, long prunes, int depth)
+	{
+		this.nodes.add(nodes);
+		this.backtracks.add(backtracks);
+		this.prunes.add(prunes);
+		maxDepth.accumulate(depth);
+	}
+
+	void solved(String solver, int vertices, boolean found, long nanos, SolverMetrics metrics)
+	{
+		solves.increment();
+		if(found)
+			circuits.increment();
+		solveNanos.add(nanos);
+		lastSolve = new LastSolve(solver, vertices, found, nanos, metrics);
+	}
+
+	public long getSolves()
+	{
+		return solves.sum();
+	}
+
+	public long getCircuitsFound()
+	{
+		return circuits.sum();
+	}
+
+	public long getNodes()
+	{
+		return nodes.sum();
+	}
+
+	public long getBacktracks()
+	{
+		return backtracks.sum();
+	}
+
+	public long getPrunes()
+	{
+		return prunes.sum();
+	}
+
+	public int getMaxDepth()
+	{
+		return (int)maxDepth.get();
+	}
+
+	public long getSolveMillis()
+	{
+		return solveNanos.sum() / 1000000L;
+	}
+
+	// Formatted only when asked for, so solves don't pay for it; the metrics'
+	// counts are read now, so shared ones may include later solves.
+	public String getLastSolve()
+	{
+		LastSolve last = lastSolve;
+		if(last == null)
+			return "";
+		return last.solver + " on " + last.vertices + " cities, " + (last.found ? "circuit found" : "no circuit") + " in "
+				+ last.nanos / 1000000L + " ms: " + last.metrics;
+	}
+
+	public void reset()
+	{
+		solves.reset();
+		circuits.reset();
+		nodes.reset();
+		backtracks.reset();
+		prunes.reset();
+		maxDepth.reset();
+		solveNanos.reset();
+		lastSolve = null;
+	}
+
+	// what solved() was told about the last solve
+	private static final class LastSolve
+	{
+		final String solver;
+		final int vertices;
+		final boolean found;
+		final long nanos;
+		final SolverMetrics metrics;
+
+		LastSolve(String solver, int vertices, boolean found, long nanos, SolverMetrics metrics)
+		{
+			this.solver = solver;
+			this.vertices = vertices;
+			this.found = found;
+			this.nanos = nanos;
+			this.metrics = metrics;
+		}
+	}
+}
@@ -0,0 +1,27 @@
+/**
+ *
+ * Management interface of SolverStats, as seen in JConsole or any other JMX
+ * client under the name cis22c:type=SolverStats.
+ *
+ */
+
+public interface SolverStatsMBean
+{
+	public long getSolves();
+
+	public long getCircuitsFound();
+
+	public long getNodes();
+
+	public long getBacktracks();
+
+	public long getPrunes();
+
+	public int getMaxDepth();
+
+	public long getSolveMillis();
+
+	public String getLastSolve();
+
+	public void reset();
+}
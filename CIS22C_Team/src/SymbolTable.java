@@ -0,0 +1,123 @@
+import java.util.*;
+
+/**
+ *
+ * Interns vertex labels (city names) to dense int ids 0, 1, 2, ... in order of
+ * first appearance.
+ *
+ * A label is hashed once, when it enters the graph; from then on the graph, its
+ * snapshots, the solvers and its undo history refer to the vertex by id and only
+ * turn it back into a label for output. Each distinct label is stored once, and
+ * an id is never reused or reassigned, so it stays valid after its vertex is
+ * removed and points to the same label if the vertex comes back.
+ *
+ */
+
+public class SymbolTable<E>
+{
+	private static final int EMPTY = -1;
+
+	private E[] labels;
+	private int[] hashes;
+	private int size;
+
+	// linear-probing table of ids, kept at most half full
+	private int[] slots;
+	private int mask;
+
+	@SuppressWarnings("unchecked")
+	public SymbolTable()
+	{
+		labels = (E[]) new Object[16];
+		hashes = new int[16];
+		slots = new int[32];
+		Arrays.fill(slots, EMPTY);
+		mask = slots.length - 1;
+	}
+
+	// Independent copy with the same ids, e.g. for a snapshot that must not see later interns.
+	public SymbolTable<E> copy()
+	{
+		SymbolTable<E> copy = new SymbolTable<E>();
+		copy.labels = Arrays.copyOf(labels, size);
+		copy.hashes = Arrays.copyOf(hashes, size);
+		copy.slots = slots.clone();
+		copy.mask = mask;
+		copy.size = size;
+		return copy;
+	}
+
+	// Number of labels interned so far; ids run from 0 to size()-1.
+	public int size()
+	{
+		return size;
+	}
+
+	// Id of label, assigning the next id if it is new.
+	public int intern(E label)
+	{
+		int h = hash(label);
+		int slot = find(label, h);
+		if(slots[slot] != EMPTY)
+			return slots[slot];
+
+		if(size == labels.length)
+		{
+			labels = Arrays.copyOf(labels, size * 2);
+			hashes = Arrays.copyOf(hashes, size * 2);
+		}
+		labels[size] = label;
+		hashes[size] = h;
+		slots[slot] = size;
+		if(++size * 2 > slots.length)
+			rehash();
+		return size - 1;
+	}
+
+	// Id of label, or -1 if it was never interned.
+	public int lookup(E label)
+	{
+		return slots[find(label, hash(label))];
+	}
+
+	// The label with this id.
+	public E label(int id)
+	{
+		if(id < 0 || id >= size)
+			throw new IndexOutOfBoundsException("No label with id " + id);
+		return labels[id];
+	}
+
+	private int find(E label, int h)
+	{
+		int slot = h & mask;
+		while(slots[slot] != EMPTY)
+		{
+			int id = slots[slot];
+			if(hashes[id] == h && labels[id].equals(label))
+				break;
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash()
+	{
+		slots = new int[slots.length * 2];
+		Arrays.fill(slots, EMPTY);
+		mask = slots.length - 1;
+		for(int id = 0; id < size; id++)
+		{
+			int slot = hashes[id] & mask;
+			while(slots[slot] != EMPTY)
+				slot = (slot + 1) & mask;
+			slots[slot] = id;
+		}
+	}
+
+	private static int hash(Object label)
+	{
+		int h = label.hashCode();
+		return h ^ (h >>> 16);
+	}
+}
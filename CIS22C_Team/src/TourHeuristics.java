@@ -0,0 +1,491 @@
+import java.util.*;
+
+/**
+ *
+ * Fast approximate circuits for graphs beyond the reach of the exact solvers.
+ *
+ * Three constructions work from the edge costs of the graph's snapshot:
+ *
+ *   - NEAREST_NEIGHBOR: from the start, always move to the cheapest unvisited neighbor.
+ *   - GREEDY_EDGE: take edges cheapest first whenever they keep every vertex at
+ *     degree two or less and close no early cycle, then join what is left.
+ *   - CHRISTOFIDES: minimum spanning tree, plus a greedy matching of its
+ *     odd-degree vertices (Christofides uses a minimum-cost perfect matching),
+ *     walked as an Euler circuit and shortcut past repeated vertices.
+ *
+ * BEST runs all three and keeps the cheapest circuit, leaving out Christofides,
+ * whose spanning tree takes O(n^2), above CHRISTOFIDES_MAX_VERTICES vertices;
+ * given a deadline it also stops between constructions. On graphs that are not
+ * complete a construction can get stuck (no unvisited neighbor, no edge for a
+ * shortcut); it then finds nothing, even when a circuit exists.
+ *
+ * Greedy edge and the matching only look at each vertex's CANDIDATES cheapest
+ * edges, so large complete graphs are not sorted in full.
+ *
+ */
+
+public class TourHeuristics<E> extends CircuitSolver<E>
+{
+	public enum Construction { NEAREST_NEIGHBOR, GREEDY_EDGE, CHRISTOFIDES, BEST }
+
+	// Cheapest edges per vertex considered by greedy edge and the matching.
+	static final int CANDIDATES = 8;
+
+	// Largest graph BEST runs Christofides on.
+	static final int CHRISTOFIDES_MAX_VERTICES = 5000;
+
+	private final Construction construction;
+	private double cost = Double.NaN;
+
+	public TourHeuristics()
+	{
+		this(Construction.BEST);
+	}
+
+	public TourHeuristics(Construction construction)
+	{
+		this.construction = construction;
+	}
+
+	boolean solve(CsrGraph<E> snapshot, List<Vertex<E>> cycleList)
+	{
+		cost = Double.NaN;
+		if(snapshot.size() == 0)
+			return false;
+
+		long start = System.nanoTime();
+		int[] tour = tour(snapshot, construction);
+		metrics.addPhase("construction", System.nanoTime() - start);
+		if(tour == null)
+			return false;
+
+		cost = tourCost(snapshot, tour);
+		for(int v : tour)
+			cycleList.add(snapshot.vertex(v));
+		cycleList.add(snapshot.vertex(tour[0]));
+		return true;
+	}
+
+	// Cost of the last circuit found by solveHamil, or NaN if none was found.
+	public double getCost()
+	{
+		return cost;
+	}
+
+	// Circuit as snapshot indices starting at 0, or null if the construction got stuck.
+	static int[] tour(CsrGraph<?> graph, Construction construction)
+	{
+		return tour(graph, construction, Long.MAX_VALUE);
+	}
+
+	// tour, with BEST trying no further construction once System.nanoTime() passes deadline
+	static int[] tour(CsrGraph<?> graph, Construction construction, long deadline)
+	{
+		if(graph.size() <= 2 && construction != Construction.BEST)
+			return nearestNeighbor(graph); // nothing to choose between
+
+		switch(construction)
+		{
+		case NEAREST_NEIGHBOR:
+			return nearestNeighbor(graph);
+		case GREEDY_EDGE:
+			return greedyEdge(graph);
+		case CHRISTOFIDES:
+			return christofides(graph);
+		default:
+			int[] best = null;
+			double bestCost = Double.POSITIVE_INFINITY;
+			for(Construction c : new Construction[] { Construction.GREEDY_EDGE, Construction.CHRISTOFIDES, Construction.NEAREST_NEIGHBOR })
+			{
+				if(c == Construction.CHRISTOFIDES && graph.size() > CHRISTOFIDES_MAX_VERTICES)
+					continue;
+				if(System.nanoTime() > deadline)
+					break;
+				int[] tour = tour(graph, c);
+				if(tour != null && tourCost(graph, tour) < bestCost)
+				{
+					best = tour;
+					bestCost = tourCost(graph, tour);
+				}
+			}
+			return best;
+		}
+	}
+
+	// Total cost of the circuit through tour, back to tour[0].
+	static double tourCost(CsrGraph<?> graph, int[] tour)
+	{
+		double total = 0;
+		for(int i = 0; i < tour.length; i++)
+			total += graph.cost(tour[i], tour[(i + 1) % tour.length]);
+		return total;
+	}
+
+	static int[] nearestNeighbor(CsrGraph<?> graph)
+	{
+		int n = graph.size();
+		int[] offsets = graph.offsets, targets = graph.targets;
+		double[] weights = graph.weights;
+		boolean[] visited = new boolean[n];
+		int[] tour = new int[n];
+
+		visited[0] = true;
+		for(int i = 1; i < n; i++)
+		{
+			int curr = tour[i - 1], next = -1;
+			double min = Double.POSITIVE_INFINITY;
+			for(int e = offsets[curr]; e < offsets[curr + 1]; e++)
+			{
+				if(!visited[targets[e]] && (next < 0 || weights[e] < min))
+				{
+					next = targets[e];
+					min = weights[e];
+				}
+			}
+			if(next < 0)
+				return null; // every neighbor already visited
+			visited[next] = true;
+			tour[i] = next;
+		}
+		return graph.hasEdge(tour[n - 1], 0) ? tour : null;
+	}
+
+	static int[] greedyEdge(CsrGraph<?> graph)
+	{
+		int n = graph.size();
+		int[] degree = new int[n];
+		int[] link1 = new int[n], link2 = new int[n];
+		int[] fragment = new int[n]; // union-find over path fragments
+		Arrays.fill(link1, -1);
+		Arrays.fill(link2, -1);
+		for(int v = 0; v < n; v++)
+			fragment[v] = v;
+
+		Candidates candidates = new Candidates(graph);
+		int added = 0;
+		for(int c = 0; c < candidates.count && added < n - 1; c++)
+		{
+			int u = candidates.from(c), v = candidates.to(c);
+			if(u == v || degree[u] == 2 || degree[v] == 2 || find(fragment, u) == find(fragment, v))
+				continue;
+			link(u, v, degree, link1, link2, fragment);
+			++added;
+		}
+
+		// join the remaining fragments end to end, cheapest edge first from each end
+		int[] offsets = graph.offsets, targets = graph.targets;
+		double[] weights = graph.weights;
+		for(int a = 0; a < n && added < n - 1; a++)
+		{
+			while(degree[a] < 2 && added < n - 1)
+			{
+				int b = -1;
+				double min = Double.POSITIVE_INFINITY;
+				for(int e = offsets[a]; e < offsets[a + 1]; e++)
+				{
+					int w = targets[e];
+					if(degree[w] < 2 && find(fragment, w) != find(fragment, a) && (b < 0 || weights[e] < min))
+					{
+						b = w;
+						min = weights[e];
+					}
+				}
+				if(b < 0)
+				{
+					if(degree[a] == 0)
+						return null; // an isolated vertex that can't be joined
+					break; // try the fragment's other end
+				}
+				link(a, b, degree, link1, link2, fragment);
+				++added;
+			}
+		}
+		if(added < n - 1)
+			return null;
+
+		// one path through every vertex; close it
+		int first = -1, last = -1;
+		for(int v = 0; v < n; v++)
+		{
+			if(degree[v] < 2)
+			{
+				if(first < 0)
+					first = v;
+				else
+					last = v;
+			}
+		}
+		if(!graph.hasEdge(first, last))
+			return null;
+		link2[first] = last;
+		link2[last] = first;
+
+		int[] tour = new int[n];
+		int prev = -1, curr = 0;
+		for(int i = 0; i < n; i++)
+		{
+			tour[i] = curr;
+			int next = link1[curr] != prev ? link1[curr] : link2[curr];
+			prev = curr;
+			curr = next;
+		}
+		return tour;
+	}
+
+	static int[] christofides(CsrGraph<?> graph)
+	{
+		int n = graph.size();
+		int[] offsets = graph.offsets, targets = graph.targets;
+		double[] weights = graph.weights;
+
+		// Prim's algorithm; parent[v] joins v to the tree
+		int[] parent = new int[n];
+		double[] key = new double[n];
+		boolean[] inTree = new boolean[n];
+		Arrays.fill(key, Double.POSITIVE_INFINITY);
+		Arrays.fill(parent, -1);
+		key[0] = 0;
+		for(int i = 0; i < n; i++)
+		{
+			int u = -1;
+			for(int v = 0; v < n; v++)
+			{
+				if(!inTree[v] && (u < 0 || key[v] < key[u]))
+					u = v;
+			}
+			if(key[u] == Double.POSITIVE_INFINITY)
+				return null; // the graph is disconnected
+			inTree[u] = true;
+			for(int e = offsets[u]; e < offsets[u + 1]; e++)
+			{
+				int v = targets[e];
+				if(!inTree[v] && weights[e] < key[v])
+				{
+					key[v] = weights[e];
+					parent[v] = u;
+				}
+			}
+		}
+
+		// multigraph of tree edges plus matching edges
+		int[] edgeFrom = new int[2 * n], edgeTo = new int[2 * n];
+		int[] degree = new int[n];
+		int edges = 0;
+		for(int v = 1; v < n; v++)
+		{
+			edgeFrom[edges] = parent[v];
+			edgeTo[edges++] = v;
+			++degree[v];
+			++degree[parent[v]];
+		}
+
+		// greedy matching of the odd-degree vertices, cheapest candidate edges first
+		boolean[] unmatched = new boolean[n];
+		for(int v = 0; v < n; v++)
+			unmatched[v] = (degree[v] & 1) == 1;
+
+		Candidates candidates = new Candidates(graph);
+		for(int c = 0; c < candidates.count; c++)
+		{
+			int u = candidates.from(c), v = candidates.to(c);
+			if(u != v && unmatched[u] && unmatched[v])
+			{
+				unmatched[u] = unmatched[v] = false;
+				edgeFrom[edges] = u;
+				edgeTo[edges++] = v;
+			}
+		}
+		for(int u = 0; u < n; u++)
+		{
+			if(!unmatched[u])
+				continue;
+			int v = -1;
+			double min = Double.POSITIVE_INFINITY;
+			for(int e = offsets[u]; e < offsets[u + 1]; e++)
+			{
+				int w = targets[e];
+				if(w != u && unmatched[w] && (v < 0 || weights[e] < min))
+				{
+					v = w;
+					min = weights[e];
+				}
+			}
+			if(v < 0)
+				return null; // no edge left to match u with
+			unmatched[u] = unmatched[v] = false;
+			edgeFrom[edges] = u;
+			edgeTo[edges++] = v;
+		}
+
+		int[] tour = shortcut(eulerCircuit(n, edgeFrom, edgeTo, edges), n);
+		for(int i = 0; i < n; i++)
+		{
+			if(!graph.hasEdge(tour[i], tour[(i + 1) % n]))
+				return null; // a shortcut with no edge
+		}
+		return tour;
+	}
+
+	// Hierholzer's algorithm from vertex 0 over an undirected multigraph with even degrees.
+	private static int[] eulerCircuit(int n, int[] edgeFrom, int[] edgeTo, int edges)
+	{
+		int[] start = new int[n + 1];
+		for(int i = 0; i < edges; i++)
+		{
+			++start[edgeFrom[i] + 1];
+			++start[edgeTo[i] + 1];
+		}
+		for(int v = 0; v < n; v++)
+			start[v + 1] += start[v];
+
+		int[] incident = new int[2 * edges];
+		int[] fill = Arrays.copyOf(start, n);
+		for(int i = 0; i < edges; i++)
+		{
+			incident[fill[edgeFrom[i]]++] = i;
+			incident[fill[edgeTo[i]]++] = i;
+		}
+
+		boolean[] used = new boolean[edges];
+		int[] next = Arrays.copyOf(start, n);
+		int[] stack = new int[edges + 1];
+		int[] circuit = new int[edges + 1];
+		int top = 0, length = 0;
+		stack[0] = 0;
+
+		while(top >= 0)
+		{
+			int v = stack[top];
+			while(next[v] < start[v + 1] && used[incident[next[v]]])
+				++next[v];
+			if(next[v] == start[v + 1])
+			{
+				circuit[length++] = v;
+				--top;
+				continue;
+			}
+			int edge = incident[next[v]++];
+			used[edge] = true;
+			stack[++top] = edgeFrom[edge] == v ? edgeTo[edge] : edgeFrom[edge];
+		}
+		return Arrays.copyOf(circuit, length);
+	}
+
+	// First visit of each vertex along the circuit.
+	private static int[] shortcut(int[] circuit, int n)
+	{
+		boolean[] seen = new boolean[n];
+		int[] tour = new int[n];
+		int count = 0;
+		for(int v : circuit)
+		{
+			if(!seen[v])
+			{
+				seen[v] = true;
+				tour[count++] = v;
+			}
+		}
+		return tour;
+	}
+
+	private static void link(int u, int v, int[] degree, int[] link1, int[] link2, int[] fragment)
+	{
+		if(link1[u] < 0)
+			link1[u] = v;
+		else
+			link2[u] = v;
+		if(link1[v] < 0)
+			link1[v] = u;
+		else
+			link2[v] = u;
+		++degree[u];
+		++degree[v];
+		fragment[find(fragment, u)] = find(fragment, v);
+	}
+
+	private static int find(int[] fragment, int v)
+	{
+		while(fragment[v] != v)
+		{
+			fragment[v] = fragment[fragment[v]];
+			v = fragment[v];
+		}
+		return v;
+	}
+
+	// Fills best with the adjacency entries of v's best.length cheapest edges, cheapest first; returns how many there are.
+	static int cheapestEdges(CsrGraph<?> graph, int v, int[] best)
+	{
+		int[] offsets = graph.offsets;
+		double[] weights = graph.weights;
+		int kept = 0;
+		for(int e = offsets[v]; e < offsets[v + 1]; e++)
+		{
+			if(kept == best.length && weights[e] >= weights[best[kept - 1]])
+				continue;
+			int i = kept < best.length ? kept++ : kept - 1;
+			while(i > 0 && weights[best[i - 1]] > weights[e])
+			{
+				best[i] = best[i - 1];
+				--i;
+			}
+			best[i] = e;
+		}
+		return kept;
+	}
+
+	// Each vertex's CANDIDATES cheapest edges, sorted cheapest first.
+	static class Candidates
+	{
+		final int count;
+		private final int[] from, to;
+		private final long[] order;
+
+		Candidates(CsrGraph<?> graph)
+		{
+			int n = graph.size();
+			int[] targets = graph.targets;
+			double[] weights = graph.weights;
+			int[] best = new int[CANDIDATES];
+
+			int total = 0;
+			for(int v = 0; v < n; v++)
+				total += Math.min(graph.degree(v), CANDIDATES);
+			from = new int[total];
+			to = new int[total];
+			order = new long[total];
+
+			int c = 0;
+			for(int v = 0; v < n; v++)
+			{
+				int kept = cheapestEdges(graph, v, best);
+				for(int i = 0; i < kept; i++)
+				{
+					from[c] = v;
+					to[c] = targets[best[i]];
+					order[c] = ((long)sortKey(weights[best[i]]) << 32) | c;
+					++c;
+				}
+			}
+			Arrays.sort(order);
+			count = total;
+		}
+
+		int from(int i)
+		{
+			return from[(int)order[i]];
+		}
+
+		int to(int i)
+		{
+			return to[(int)order[i]];
+		}
+
+		// int that orders like the cost (at float precision)
+		private static int sortKey(double cost)
+		{
+			int bits = Float.floatToIntBits((float)cost);
+			return bits ^ ((bits >> 31) & 0x7fffffff);
+		}
+	}
+}
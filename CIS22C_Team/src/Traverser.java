@@ -0,0 +1,104 @@
+import java.util.*;
+
+/**
+ *
+ * Reusable breadth-first and depth-first traversal state for one CsrGraph snapshot.
+ *
+ * The queue, the depth-first stack and the visited marks are allocated once
+ * with the traverser and reused by every traversal. A vertex counts as visited
+ * when its stamp equals the current epoch, so starting a new traversal only
+ * bumps the epoch instead of clearing every vertex. After the first traversal
+ * no further objects are allocated.
+ *
+ * Each vertex enters the queue or the stack at most once per traversal, so
+ * arrays of snapshot size are enough and the queue never has to wrap around.
+ *
+ * A traverser is not safe for use by several threads at once.
+ *
+ */
+
+public class Traverser<E>
+{
+	private final CsrGraph<E> graph;
+	private final int[] stamp;
+	private int epoch;
+	private final int[] queue;  // BFS queue, or DFS stack of vertices
+	private final int[] cursor; // DFS: next edge to follow for each stack entry
+
+	public Traverser(CsrGraph<E> graph)
+	{
+		this.graph = graph;
+		stamp = new int[graph.size()];
+		queue = new int[graph.size()];
+		cursor = new int[graph.size()];
+	}
+
+	/** Breadth-first traversal from the vertex with index start */
+	public void breadthFirstTraversal(int start, Visitor<E> visitor)
+	{
+		int[] offsets = graph.offsets, targets = graph.targets;
+		int mark = newEpoch();
+		int head = 0, tail = 0;
+
+		stamp[start] = mark;
+		visitor.visit(graph.label(start));
+		queue[tail++] = start;
+		while(head < tail)
+		{
+			int v = queue[head++];
+			for(int e = offsets[v]; e < offsets[v + 1]; e++)
+			{
+				int w = targets[e];
+				if(stamp[w] != mark)
+				{
+					queue[tail++] = w;
+					stamp[w] = mark;
+					visitor.visit(graph.label(w));
+				}
+			}
+		}
+	}
+
+	/** Depth-first traversal from the vertex with index start, in the same order as a recursive one */
+	public void depthFirstTraversal(int start, Visitor<E> visitor)
+	{
+		int[] offsets = graph.offsets, targets = graph.targets;
+		int mark = newEpoch();
+		int top = 0;
+
+		stamp[start] = mark;
+		visitor.visit(graph.label(start));
+		queue[0] = start;
+		cursor[0] = offsets[start];
+		while(top >= 0)
+		{
+			int v = queue[top];
+			if(cursor[top] == offsets[v + 1])
+			{
+				--top; // every neighbor done, back up
+				continue;
+			}
+
+			int w = targets[cursor[top]++];
+			if(stamp[w] != mark)
+			{
+				stamp[w] = mark;
+				visitor.visit(graph.label(w));
+				queue[++top] = w;
+				cursor[top] = offsets[w];
+			}
+		}
+	}
+
+	// Starts a new traversal; all vertices become unvisited.
+	private int newEpoch()
+	{
+		if(++epoch == Integer.MAX_VALUE)
+		{
+			// stamps from 2^31 traversals ago could look current, so clear them
+			Arrays.fill(stamp, 0);
+			epoch = 1;
+		}
+		return epoch;
+	}
+}
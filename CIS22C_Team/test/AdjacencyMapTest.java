@@ -0,0 +1,94 @@
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * AdjacencyMap against a HashMap, mostly around removals: deleting a slot
+ * shifts later entries of its probe run back, and none may get lost.
+ *
+ */
+
+public class AdjacencyMapTest
+{
+	private static Vertex<String> vertex(int id)
+	{
+		return new Vertex<String>("c" + id, id);
+	}
+
+	@Test
+	public void putKeepsTheFirstCost()
+	{
+		AdjacencyMap<String> map = new AdjacencyMap<>();
+		assertTrue(map.put(vertex(7), 3.0));
+		assertFalse(map.put(vertex(7), 5.0));
+		assertEquals(1, map.size());
+		assertEquals(3.0, map.get(7));
+		assertTrue(Double.isNaN(map.get(8)));
+	}
+
+	@Test
+	public void removeMovesTheLastEntryIntoTheHole()
+	{
+		AdjacencyMap<String> map = new AdjacencyMap<>();
+		for(int id = 1; id <= 3; id++)
+			map.put(vertex(id), id);
+		assertTrue(map.remove(1));
+		assertFalse(map.remove(1));
+		assertEquals(2, map.size());
+		assertEquals(3, map.idAt(0));
+		assertEquals(3.0, map.costAt(0));
+		assertEquals(2, map.idAt(1));
+	}
+
+	@Test
+	public void removalsNeverLoseEntries()
+	{
+		// few distinct ids in a table that keeps growing and shrinking, so probe runs collide often
+		Random random = new Random(22);
+		AdjacencyMap<String> map = new AdjacencyMap<>();
+		Map<Integer, Double> expected = new HashMap<>();
+		for(int step = 0; step < 20000; step++)
+		{
+			int id = random.nextInt(64);
+			if(random.nextInt(3) == 0)
+				assertEquals(expected.remove(id) != null, map.remove(id));
+			else
+			{
+				double cost = random.nextInt(100);
+				assertEquals(!expected.containsKey(id), map.put(vertex(id), cost));
+				expected.putIfAbsent(id, cost);
+			}
+
+			assertEquals(expected.size(), map.size());
+			for(int other = 0; other < 64; other++)
+			{
+				Double cost = expected.get(other);
+				assertEquals(cost != null, map.containsKey(other), "id " + other + " at step " + step);
+				if(cost != null)
+					assertEquals(cost.doubleValue(), map.get(other));
+			}
+			for(int i = 0; i < map.size(); i++)
+			{
+				assertEquals(expected.get(map.idAt(i)).doubleValue(), map.costAt(i));
+				assertEquals(map.idAt(i), map.vertexAt(i).id);
+			}
+		}
+	}
+
+	@Test
+	public void clearEmptiesTheMap()
+	{
+		AdjacencyMap<String> map = new AdjacencyMap<>(2);
+		for(int id = 0; id < 100; id++)
+			map.put(vertex(id), id);
+		map.clear();
+		assertTrue(map.isEmpty());
+		for(int id = 0; id < 100; id++)
+			assertFalse(map.containsKey(id));
+		assertTrue(map.put(vertex(5), 1.0));
+		assertEquals(1, map.size());
+	}
+}
@@ -0,0 +1,157 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * ConcurrentGraph under edits from other threads: every snapshot is one whole
+ * version of the graph, and solvers handed the live graph search a single
+ * version of it.
+ *
+ */
+
+public class ConcurrentGraphTest
+{
+	private static final int CITIES = 12;
+	private static final long MILLIS = 1000;
+
+	// A ring of CITIES cities, which edits never break, so there is always a circuit.
+	private static ConcurrentGraph<String> ring()
+	{
+		ConcurrentGraph<String> graph = new ConcurrentGraph<>();
+		for(int i = 0; i < CITIES; i++)
+			graph.addEdge("c" + i, "c" + (i + 1) % CITIES, 1 + i % 5);
+		return graph;
+	}
+
+	// Adds and removes roads across the ring, and a spare city x between c0 and c1,
+	// until stop is set.
+	private static Callable<Void> editor(ConcurrentGraph<String> graph, long seed, AtomicBoolean stop)
+	{
+		return () ->
+		{
+			Random random = new Random(seed);
+			while(!stop.get())
+			{
+				int a = random.nextInt(CITIES), b = random.nextInt(CITIES);
+				int gap = Math.abs(a - b);
+				if(random.nextInt(8) == 0)
+				{
+					if(graph.idOf("x") < 0)
+					{
+						graph.addEdge("x", "c0", 2);
+						graph.addEdge("x", "c1", 2);
+					}
+					else
+						graph.removeVertex("x");
+				}
+				else if(gap > 1 && gap < CITIES - 1)
+				{
+					if(random.nextBoolean())
+						graph.addEdge("c" + a, "c" + b, 1 + random.nextInt(20));
+					else
+						graph.remove("c" + a, "c" + b);
+				}
+			}
+			return null;
+		};
+	}
+
+	// Runs the editors and readers together for MILLIS, then rethrows anything a reader threw.
+	private static void race(ConcurrentGraph<String> graph, Callable<Void> reader) throws Exception
+	{
+		AtomicBoolean stop = new AtomicBoolean();
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<Void>> tasks = new ArrayList<>();
+			tasks.add(pool.submit(editor(graph, 1, stop)));
+			tasks.add(pool.submit(editor(graph, 2, stop)));
+			for(int i = 0; i < 2; i++)
+			{
+				tasks.add(pool.submit(() ->
+				{
+					while(!stop.get())
+						reader.call();
+					return null;
+				}));
+			}
+			Thread.sleep(MILLIS);
+			stop.set(true);
+			for(Future<Void> task : tasks)
+				task.get();
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	// Checks that cycle visits every city of snapshot once along its roads.
+	private static void assertCircuit(CsrGraph<String> snapshot, List<Vertex<String>> cycle)
+	{
+		int n = snapshot.size();
+		assertEquals(n + 1, cycle.size());
+		assertSame(cycle.get(0), cycle.get(n));
+		boolean[] seen = new boolean[n];
+		for(int i = 0; i < n; i++)
+		{
+			int v = snapshot.indexOfId(cycle.get(i).id);
+			assertTrue(v >= 0 && !seen[v], "city " + cycle.get(i).data + " missing or visited twice");
+			seen[v] = true;
+			assertTrue(snapshot.hasEdge(v, snapshot.indexOfId(cycle.get(i + 1).id)), "no road " + cycle.get(i).data + " - " + cycle.get(i + 1).data);
+		}
+	}
+
+	@Test
+	public void snapshotsAreWholeVersions() throws Exception
+	{
+		ConcurrentGraph<String> graph = ring();
+		race(graph, () ->
+		{
+			CsrGraph<String> snapshot = graph.freeze();
+			int n = snapshot.size();
+			assertTrue(n == CITIES || n == CITIES + 1, "snapshot has " + n + " cities");
+			for(int v = 0; v < n; v++)
+			{
+				for(int e = snapshot.offsets[v]; e < snapshot.offsets[v + 1]; e++)
+				{
+					int u = snapshot.targets[e];
+					assertTrue(snapshot.hasEdge(u, v), "road " + v + " - " + u + " only one way");
+					assertEquals(snapshot.weights[e], snapshot.cost(u, v));
+				}
+			}
+
+			List<Vertex<String>> cycle = new ArrayList<>();
+			PrunedSearch<String> solver = new PrunedSearch<>();
+			assertTrue(solver.solveHamil(snapshot, cycle));
+			assertCircuit(snapshot, cycle);
+			return null;
+		});
+	}
+
+	@Test
+	public void solversReadOneVersion() throws Exception
+	{
+		ConcurrentGraph<String> graph = ring();
+		race(graph, () ->
+		{
+			// the live graph may change mid-solve, but the circuit must still be
+			// one of some single version: every city once, x included or not
+			List<Vertex<String>> cycle = new ArrayList<>();
+			HeldKarp<String> solver = new HeldKarp<>();
+			assertTrue(solver.solveHamil(graph, cycle));
+			int n = cycle.size() - 1;
+			assertTrue(n == CITIES || n == CITIES + 1, "circuit through " + n + " cities");
+			Set<String> cities = new HashSet<>();
+			for(int i = 0; i < n; i++)
+				assertTrue(cities.add(cycle.get(i).data), "city " + cycle.get(i).data + " visited twice");
+			assertSame(cycle.get(0), cycle.get(n));
+			return null;
+		});
+	}
+}
@@ -0,0 +1,116 @@
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * The solvers that claim an exact answer, against trying every order on small
+ * random graphs: the cheapest circuit for HeldKarp, BranchAndBound and
+ * AnytimeSolver, and whether there is one for Hamiltonian.
+ *
+ */
+
+public class ExactSolverTest
+{
+	private static final int GRAPHS = 300;
+
+	private static Graph<String> graph(long seed)
+	{
+		return SampleGraphs.random(seed, 3 + (int)(seed % 7), 0.3 + 0.1 * (seed % 7));
+	}
+
+	@Test
+	public void heldKarpFindsTheCheapestCircuit()
+	{
+		for(long seed = 0; seed < GRAPHS; seed++)
+		{
+			Graph<String> graph = graph(seed);
+			double expected = SampleGraphs.bruteForce(graph);
+			List<Vertex<String>> cycle = new ArrayList<>();
+			HeldKarp<String> solver = new HeldKarp<>();
+			boolean found = solver.solveHamil(graph, cycle);
+
+			assertEquals(expected < Double.POSITIVE_INFINITY, found, "seed " + seed);
+			if(found)
+			{
+				assertEquals(expected, solver.getCost(), "seed " + seed);
+				assertEquals(expected, SampleGraphs.circuitCost(graph, cycle), "seed " + seed);
+			}
+		}
+	}
+
+	@Test
+	public void heldKarpRejectsLargeGraphs()
+	{
+		Graph<String> graph = SampleGraphs.random(1, HeldKarp.MAX_VERTICES + 1, 1.0);
+		assertThrows(IllegalArgumentException.class, () -> new HeldKarp<String>().solveHamil(graph, new ArrayList<Vertex<String>>()));
+	}
+
+	@Test
+	public void branchAndBoundFindsTheCheapestCircuit()
+	{
+		for(long seed = 0; seed < GRAPHS; seed++)
+		{
+			Graph<String> graph = graph(seed);
+			double expected = SampleGraphs.bruteForce(graph);
+			List<Vertex<String>> cycle = new ArrayList<>();
+			BranchAndBound<String> solver = new BranchAndBound<>();
+			boolean found = solver.solveHamil(graph, cycle);
+
+			assertTrue(solver.isOptimal(), "seed " + seed);
+			assertEquals(expected < Double.POSITIVE_INFINITY, found, "seed " + seed);
+			if(found)
+			{
+				assertEquals(expected, solver.getCost(), "seed " + seed);
+				assertEquals(expected, SampleGraphs.circuitCost(graph, cycle), "seed " + seed);
+			}
+		}
+	}
+
+	@Test
+	public void branchAndBoundRejectsLargeGraphs()
+	{
+		// a ring is enough: the limit is on the cost matrix, whatever the edges
+		Graph<String> graph = new Graph<>();
+		int n = BranchAndBound.MAX_VERTICES + 1;
+		for(int i = 0; i < n; i++)
+			graph.addEdge("c" + i, "c" + (i + 1) % n, 1);
+		assertThrows(IllegalArgumentException.class, () -> new BranchAndBound<String>().solveHamil(graph, new ArrayList<Vertex<String>>()));
+	}
+
+	@Test
+	public void anytimeSolverProvesSmallGraphsOptimal()
+	{
+		for(long seed = 0; seed < GRAPHS; seed++)
+		{
+			Graph<String> graph = graph(seed);
+			double expected = SampleGraphs.bruteForce(graph);
+			SolveResult<String> result = new AnytimeSolver<String>().solve(graph, 10000);
+
+			if(expected == Double.POSITIVE_INFINITY)
+				assertEquals(SolveResult.Status.INFEASIBLE, result.getStatus(), "seed " + seed);
+			else
+			{
+				assertEquals(SolveResult.Status.OPTIMAL, result.getStatus(), "seed " + seed);
+				assertEquals(expected, result.getCost(), "seed " + seed);
+				assertEquals(expected, SampleGraphs.circuitCost(graph, result.getCycle()), "seed " + seed);
+			}
+		}
+	}
+
+	@Test
+	public void hamiltonianFindsACircuitWhenOneExists()
+	{
+		for(long seed = 0; seed < GRAPHS; seed++)
+		{
+			Graph<String> graph = graph(seed);
+			boolean expected = SampleGraphs.bruteForce(graph) < Double.POSITIVE_INFINITY;
+			List<Vertex<String>> cycle = new ArrayList<>();
+			assertEquals(expected, new Hamiltonian<String>().solveHamil(graph, cycle), "seed " + seed);
+			if(expected)
+				assertFalse(Double.isNaN(SampleGraphs.circuitCost(graph, cycle)), "seed " + seed);
+		}
+	}
+}
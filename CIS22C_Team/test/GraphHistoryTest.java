@@ -0,0 +1,223 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * GraphHistory: undo, redo and restore bring the graph back to exactly the
+ * version asked for, across branches and with the cities an edit removed, and
+ * every version's toGraph() matches the graph as it was then.
+ *
+ */
+
+public class GraphHistoryTest
+{
+	// The cities and paths of graph, e.g. "A", "A-B 3.0", to compare versions by.
+	private static Set<String> state(Graph<String> graph)
+	{
+		CsrGraph<String> snapshot = graph.freeze();
+		Set<String> state = new TreeSet<>();
+		for(int v = 0; v < snapshot.size(); v++)
+		{
+			String city = snapshot.vertex(v).data;
+			state.add(city);
+			for(int e = snapshot.offsets[v]; e < snapshot.offsets[v + 1]; e++)
+				state.add(city + "-" + snapshot.vertex(snapshot.targets[e]).data + " " + snapshot.weights[e]);
+		}
+		return state;
+	}
+
+	// A square A-B-C-D with a spur from D to E.
+	private static Graph<String> square()
+	{
+		Graph<String> graph = new Graph<>();
+		graph.addEdge("A", "B", 1);
+		graph.addEdge("B", "C", 2);
+		graph.addEdge("C", "D", 3);
+		graph.addEdge("D", "A", 4);
+		graph.addEdge("D", "E", 5);
+		return graph;
+	}
+
+	@Test
+	public void undoAndRedoRestoreRemovedCities()
+	{
+		Graph<String> graph = square();
+		GraphHistory<String> history = new GraphHistory<>(graph);
+		Set<String> loaded = state(graph);
+		assertFalse(history.canUndo());
+
+		// E's only path, so E goes with it
+		assertTrue(history.removeEdge("D", "E"));
+		assertFalse(history.removeEdge("D", "E"));
+		assertFalse(state(graph).contains("E"));
+		assertEquals(4, history.current().cityCount());
+		assertEquals(4, history.current().pathCount());
+		Set<String> removed = state(graph);
+
+		assertTrue(history.undo());
+		assertEquals(loaded, state(graph));
+		assertFalse(history.undo());
+		assertTrue(history.redo());
+		assertEquals(removed, state(graph));
+		assertFalse(history.redo());
+
+		assertTrue(history.addEdge("A", "C", 6));
+		assertFalse(history.addEdge("C", "A", 7));
+		assertTrue(history.undo());
+		assertTrue(history.undo());
+		assertEquals(loaded, state(graph));
+		assertEquals(3, history.versions().size());
+	}
+
+	@Test
+	public void restoreMovesBetweenBranches()
+	{
+		Graph<String> graph = square();
+		GraphHistory<String> history = new GraphHistory<>(graph);
+		GraphHistory.Version<String> loaded = history.current();
+
+		// one branch adds a diagonal and drops E, the other adds a new city F
+		history.addEdge("A", "C", 6);
+		history.removeEdge("D", "E");
+		GraphHistory.Version<String> first = history.current();
+		Set<String> firstState = state(graph);
+		history.undo();
+		history.undo();
+		history.addEdge("B", "F", 7);
+		history.addEdge("F", "C", 8);
+		GraphHistory.Version<String> second = history.current();
+		Set<String> secondState = state(graph);
+		assertSame(loaded, second.getParent().getParent());
+		assertFalse(history.canRedo());
+
+		history.restore(first);
+		assertSame(first, history.current());
+		assertEquals(firstState, state(graph));
+
+		history.restore(second);
+		assertEquals(secondState, state(graph));
+		assertTrue(state(graph).contains("E"));
+
+		history.restore(loaded);
+		assertEquals(state(square()), state(graph));
+
+		// redo follows the branch restore last came down
+		history.restore(second);
+		history.undo();
+		history.undo();
+		assertTrue(history.redo());
+		assertEquals("Added path B - F (7.0)", history.current().getDescription());
+
+		// editing mid-branch starts a third one and keeps the others
+		history.addEdge("A", "C", 9);
+		assertSame(second.getParent(), history.current().getParent());
+		history.restore(second);
+		assertEquals(secondState, state(graph));
+		history.restore(first);
+		assertEquals(firstState, state(graph));
+	}
+
+	@Test
+	public void versionsRebuildTheirGraph()
+	{
+		Random random = new Random(25);
+		Graph<String> graph = SampleGraphs.random(25, 10, 0.3);
+		GraphHistory<String> history = new GraphHistory<>(graph);
+		Map<Integer, Set<String>> seen = new HashMap<>();
+		seen.put(0, state(graph));
+		for(int step = 0; step < 300; step++)
+		{
+			String a = "c" + random.nextInt(12), b = "c" + random.nextInt(12);
+			int op = random.nextInt(10);
+			if(op < 3)
+				history.addEdge(a, b, 1 + random.nextInt(50));
+			else if(op < 6)
+				history.removeEdge(a, b);
+			else if(op < 8)
+				history.undo();
+			else if(op < 9)
+				history.redo();
+			else
+			{
+				List<GraphHistory.Version<String>> versions = history.versions();
+				history.restore(versions.get(random.nextInt(versions.size())));
+			}
+
+			// whichever way a version is reached, the graph looks the same
+			GraphHistory.Version<String> current = history.current();
+			Set<String> state = state(graph);
+			Set<String> before = seen.putIfAbsent(current.getNumber(), state);
+			if(before != null)
+				assertEquals(before, state, "version " + current.getNumber());
+			assertEquals(graph.freeze().size(), current.cityCount());
+		}
+		for(GraphHistory.Version<String> version : history.versions())
+			assertEquals(seen.get(version.getNumber()), state(version.toGraph()), version.toString());
+	}
+
+	@Test
+	public void readersOfAConcurrentGraphOnlySeeRecordedVersions() throws Exception
+	{
+		ConcurrentGraph<String> graph = new ConcurrentGraph<>();
+		for(int i = 0; i < 8; i++)
+			graph.addEdge("c" + i, "c" + (i + 1) % 8, 1 + i);
+		GraphHistory<String> history = new GraphHistory<>(graph);
+
+		// spurs to new cities come and go, so edits keep removing a city with its last path
+		AtomicBoolean stop = new AtomicBoolean();
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		Future<Set<Set<String>>> reader = pool.submit(() ->
+		{
+			Set<Set<String>> seen = new HashSet<>();
+			while(!stop.get())
+				seen.add(state(graph));
+			return seen;
+		});
+		try
+		{
+			Random random = new Random(25);
+			for(int step = 0; step < 3000; step++)
+			{
+				String city = "c" + random.nextInt(8), spur = "s" + random.nextInt(4);
+				int op = random.nextInt(5);
+				if(op == 0)
+					history.addEdge(city, spur, 1 + random.nextInt(9));
+				else if(op == 1)
+					history.removeEdge(city, spur);
+				else if(op == 2)
+					history.undo();
+				else if(op == 3)
+					history.redo();
+				else
+				{
+					List<GraphHistory.Version<String>> versions = history.versions();
+					history.restore(versions.get(random.nextInt(versions.size())));
+				}
+			}
+		}
+		finally
+		{
+			stop.set(true);
+			pool.shutdown();
+		}
+
+		Set<Set<String>> recorded = new HashSet<>();
+		for(GraphHistory.Version<String> version : history.versions())
+			recorded.add(state(version.toGraph()));
+		for(Set<String> state : reader.get())
+			assertTrue(recorded.contains(state), "snapshot of no version: " + state);
+	}
+
+	@Test
+	public void restoreRejectsAnotherGraphsVersion()
+	{
+		GraphHistory<String> history = new GraphHistory<>(square());
+		GraphHistory<String> other = new GraphHistory<>(square());
+		assertThrows(IllegalArgumentException.class, () -> history.restore(other.current()));
+	}
+}
@@ -0,0 +1,112 @@
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * LocalSearch moves, each on its own (see setMoves) and together.
+ *
+ * The polygon graphs have nine cities, so every city's CANDIDATES cheapest
+ * neighbors are all of the others. A circuit of cities round a circle that no
+ * 2-opt move improves has no crossing edges, and is then the circuit round the
+ * circle.
+ *
+ */
+
+public class LocalSearchTest
+{
+	private static final int CITIES = 9;
+	private static final double EPSILON = 1e-9;
+
+	private static double improve(Graph<String> graph, List<Vertex<String>> cycle, EnumSet<LocalSearch.Move> moves)
+	{
+		LocalSearch<String> search = new LocalSearch<>();
+		search.setMoves(moves);
+		double before = SampleGraphs.circuitCost(graph, cycle);
+		search.improve(graph, cycle);
+		double after = SampleGraphs.circuitCost(graph, cycle);
+		assertFalse(Double.isNaN(after), "no longer a circuit: " + cycle);
+		assertEquals(before, search.getInitialCost(), EPSILON);
+		assertEquals(after, search.getCost(), EPSILON);
+		assertTrue(after <= before + EPSILON);
+		return after;
+	}
+
+	private static int[] shuffled(long seed)
+	{
+		List<Integer> cities = new ArrayList<>();
+		for(int i = 0; i < CITIES; i++)
+			cities.add(i);
+		Collections.shuffle(cities, new Random(seed));
+		int[] order = new int[CITIES];
+		for(int i = 0; i < CITIES; i++)
+			order[i] = cities.get(i);
+		return order;
+	}
+
+	@Test
+	public void twoOptUncrossesEveryCircuit()
+	{
+		Graph<String> graph = SampleGraphs.polygon(CITIES);
+		for(long seed = 0; seed < 50; seed++)
+		{
+			List<Vertex<String>> cycle = SampleGraphs.circuit(graph, shuffled(seed));
+			assertEquals(SampleGraphs.perimeter(CITIES), improve(graph, cycle, EnumSet.of(LocalSearch.Move.TWO_OPT)), EPSILON);
+		}
+	}
+
+	@Test
+	public void twoOptFixesOneCrossing()
+	{
+		Graph<String> graph = SampleGraphs.polygon(CITIES);
+		List<Vertex<String>> cycle = SampleGraphs.circuit(graph, 0, 1, 5, 4, 3, 2, 6, 7, 8);
+		assertEquals(SampleGraphs.perimeter(CITIES), improve(graph, cycle, EnumSet.of(LocalSearch.Move.TWO_OPT)), EPSILON);
+	}
+
+	@Test
+	public void orOptMovesAStrayCity()
+	{
+		Graph<String> graph = SampleGraphs.polygon(CITIES);
+		List<Vertex<String>> cycle = SampleGraphs.circuit(graph, 0, 4, 1, 2, 3, 5, 6, 7, 8);
+		assertEquals(SampleGraphs.perimeter(CITIES), improve(graph, cycle, EnumSet.of(LocalSearch.Move.OR_OPT)), EPSILON);
+	}
+
+	@Test
+	public void orOptMovesAReversedRun()
+	{
+		// cities 5, 6, 7 sit backwards between 1 and 2
+		Graph<String> graph = SampleGraphs.polygon(CITIES);
+		List<Vertex<String>> cycle = SampleGraphs.circuit(graph, 0, 1, 7, 6, 5, 2, 3, 4, 8);
+		assertEquals(SampleGraphs.perimeter(CITIES), improve(graph, cycle, EnumSet.of(LocalSearch.Move.OR_OPT)), EPSILON);
+	}
+
+	@Test
+	public void linKernighanUncrossesEveryCircuit()
+	{
+		Graph<String> graph = SampleGraphs.polygon(CITIES);
+		for(long seed = 0; seed < 50; seed++)
+		{
+			List<Vertex<String>> cycle = SampleGraphs.circuit(graph, shuffled(seed));
+			assertEquals(SampleGraphs.perimeter(CITIES), improve(graph, cycle, EnumSet.of(LocalSearch.Move.LIN_KERNIGHAN)), EPSILON);
+		}
+	}
+
+	@Test
+	public void neverUsesAMissingEdge()
+	{
+		int improved = 0;
+		for(long seed = 0; seed < 200; seed++)
+		{
+			Graph<String> graph = SampleGraphs.random(seed, 12, 0.5);
+			List<Vertex<String>> cycle = new ArrayList<>();
+			if(!new Hamiltonian<String>().solveHamil(graph, cycle))
+				continue;
+			double before = SampleGraphs.circuitCost(graph, cycle);
+			if(improve(graph, cycle, EnumSet.allOf(LocalSearch.Move.class)) < before - EPSILON)
+				++improved;
+		}
+		assertTrue(improved > 0);
+	}
+}
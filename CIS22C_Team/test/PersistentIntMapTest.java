@@ -0,0 +1,112 @@
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * PersistentIntMap against a TreeMap: keys that share their low bits split a
+ * slot into a deeper node and collapse back when removed, and no update
+ * changes a map handed out earlier.
+ *
+ */
+
+public class PersistentIntMapTest
+{
+	// Checks that map holds exactly the entries of expected.
+	private static void assertSameEntries(Map<Integer, Integer> expected, PersistentIntMap<Integer> map)
+	{
+		assertEquals(expected.size(), map.size());
+		assertEquals(expected.isEmpty(), map.isEmpty());
+		for(Map.Entry<Integer, Integer> entry : expected.entrySet())
+			assertEquals(entry.getValue(), map.get(entry.getKey()), "key " + entry.getKey());
+		int[] keys = map.keys();
+		Arrays.sort(keys);
+		int[] wanted = new int[expected.size()];
+		int i = 0;
+		for(int key : expected.keySet())
+			wanted[i++] = key;
+		assertArrayEquals(wanted, keys);
+	}
+
+	@Test
+	public void keysSharingLowBitsSplitAndCollapse()
+	{
+		// the same lowest 5, 10 and 15 bits, so each one splits the slot a level further down
+		int[] keys = { 1, 1 + 32, 1 + 32 * 32, 1 + 32 * 32 * 32, 1 | Integer.MIN_VALUE };
+		PersistentIntMap<Integer> map = PersistentIntMap.empty();
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+		for(int key : keys)
+		{
+			map = map.put(key, key * 2);
+			expected.put(key, key * 2);
+			assertSameEntries(expected, map);
+		}
+		assertNull(map.get(1 + 64));
+		assertNull(map.get(1 + 32 * 64));
+
+		// removing from the deepest level up leaves a lone key, then nothing
+		for(int i = keys.length - 1; i >= 0; i--)
+		{
+			map = map.remove(keys[i]);
+			expected.remove(keys[i]);
+			assertSameEntries(expected, map);
+			assertNull(map.get(keys[i]));
+		}
+		assertSame(PersistentIntMap.<Integer>empty(), map);
+
+		// and from the shallowest level down
+		for(int key : keys)
+			map = map.put(key, key);
+		for(int key : keys)
+		{
+			map = map.remove(key);
+			assertNull(map.get(key));
+		}
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	public void updatesThatChangeNothingReturnTheSameMap()
+	{
+		PersistentIntMap<Integer> map = PersistentIntMap.<Integer>empty().put(5, 50).put(37, 370);
+		assertSame(map, map.put(5, 50));
+		assertSame(map, map.remove(6));
+		assertSame(map, map.remove(69)); // shares 37's slot but isn't there
+		assertThrows(NullPointerException.class, () -> map.put(1, null));
+	}
+
+	@Test
+	public void oldVersionsNeverChange()
+	{
+		Random random = new Random(25);
+		PersistentIntMap<Integer> map = PersistentIntMap.empty();
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+		List<PersistentIntMap<Integer>> versions = new ArrayList<>();
+		List<TreeMap<Integer, Integer>> states = new ArrayList<>();
+		for(int step = 0; step < 20000; step++)
+		{
+			// mostly small keys, so slots fill and split, with some anywhere in the int range
+			int key = random.nextInt(3) == 0 ? random.nextInt() : random.nextInt(2000);
+			if(random.nextBoolean())
+			{
+				map = map.put(key, step);
+				expected.put(key, step);
+			}
+			else
+			{
+				map = map.remove(key);
+				expected.remove(key);
+			}
+			if(step % 1000 == 0)
+			{
+				versions.add(map);
+				states.add(new TreeMap<>(expected));
+			}
+		}
+		assertSameEntries(expected, map);
+		for(int i = 0; i < versions.size(); i++)
+			assertSameEntries(states.get(i), versions.get(i));
+	}
+}
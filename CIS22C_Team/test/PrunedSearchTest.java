@@ -0,0 +1,93 @@
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * PrunedSearch's look-ahead: a city with only two ways left in or out forces
+ * both, and two such cities next to the path's end are a dead end.
+ *
+ */
+
+public class PrunedSearchTest
+{
+	// The Petersen graph: every city has three roads and no Feasibility test
+	// applies, but there is no circuit.
+	private static Graph<String> petersen()
+	{
+		Graph<String> graph = new Graph<>();
+		for(int i = 0; i < 5; i++)
+		{
+			graph.addEdge("c" + i, "c" + (i + 1) % 5, 1);
+			graph.addEdge("c" + i, "c" + (i + 5), 1);
+			graph.addEdge("c" + (i + 5), "c" + ((i + 2) % 5 + 5), 1);
+		}
+		return graph;
+	}
+
+	// A ring of n cities with a road across it from every third city, so most
+	// cities have exactly two roads.
+	private static Graph<String> ringWithChords(int n)
+	{
+		Graph<String> graph = new Graph<>();
+		for(int i = 0; i < n; i++)
+			graph.addEdge("c" + i, "c" + (i + 1) % n, 1 + i % 7);
+		for(int i = 0; i < n / 2; i += 3)
+			graph.addEdge("c" + i, "c" + (i + n / 2), 10);
+		return graph;
+	}
+
+	@Test
+	public void provesThePetersenGraphHasNoCircuit()
+	{
+		Graph<String> graph = petersen();
+		assertNull(Feasibility.check(graph.freeze()));
+
+		PrunedSearch<String> search = new PrunedSearch<>();
+		assertFalse(search.solveHamil(graph, new ArrayList<Vertex<String>>()));
+		assertFalse(search.isTimedOut());
+		assertNull(search.getReason());
+		assertTrue(search.getMetrics().getPrunes() > 0);
+	}
+
+	@Test
+	public void forcedEdgesCutTheSearchShort()
+	{
+		Graph<String> graph = ringWithChords(60);
+		List<Vertex<String>> cycle = new ArrayList<>();
+		PrunedSearch<String> search = new PrunedSearch<>();
+		search.setTimeLimit(10000);
+		assertTrue(search.solveHamil(graph, cycle));
+		assertFalse(Double.isNaN(SampleGraphs.circuitCost(graph, cycle)));
+
+		// the forced ring leaves almost nothing to choose
+		SolverMetrics metrics = search.getMetrics();
+		assertTrue(metrics.getPrunes() > 0);
+		assertTrue(metrics.getNodes() < 10 * 60, "nodes: " + metrics.getNodes());
+	}
+
+	@Test
+	public void agreesWithBruteForce()
+	{
+		int circuits = 0;
+		for(long seed = 0; seed < 300; seed++)
+		{
+			int n = 3 + (int)(seed % 7);
+			Graph<String> graph = SampleGraphs.random(seed, n, 0.3 + 0.1 * (seed % 6));
+			boolean expected = SampleGraphs.bruteForce(graph) < Double.POSITIVE_INFINITY;
+
+			List<Vertex<String>> cycle = new ArrayList<>();
+			PrunedSearch<String> search = new PrunedSearch<>();
+			assertEquals(expected, search.solveHamil(graph, cycle), "seed " + seed);
+			assertFalse(search.isTimedOut());
+			if(expected)
+			{
+				assertFalse(Double.isNaN(SampleGraphs.circuitCost(graph, cycle)), "seed " + seed);
+				++circuits;
+			}
+		}
+		assertTrue(circuits > 50);
+	}
+}
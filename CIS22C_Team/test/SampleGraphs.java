@@ -0,0 +1,132 @@
+import java.util.*;
+
+/**
+ *
+ * Graphs and reference answers shared by the tests.
+ *
+ */
+
+final class SampleGraphs
+{
+	private SampleGraphs()
+	{
+	}
+
+	// Cities c0 .. c(n-1), each pair joined with probability p at a cost of 1 to 50.
+	static Graph<String> random(long seed, int n, double p)
+	{
+		Random random = new Random(seed);
+		Graph<String> graph = new Graph<>();
+		for(int i = 0; i < n; i++)
+			graph.addToVertexSet("c" + i);
+		for(int i = 0; i < n; i++)
+		{
+			for(int j = i + 1; j < n; j++)
+			{
+				if(random.nextDouble() < p)
+					graph.addEdge("c" + i, "c" + j, 1 + random.nextInt(50));
+			}
+		}
+		return graph;
+	}
+
+	// Complete graph on n points evenly spaced round a circle, c0 .. c(n-1) in
+	// order, costing their distance; the circuit round the circle is the cheapest.
+	static Graph<String> polygon(int n)
+	{
+		Graph<String> graph = new Graph<>();
+		for(int i = 0; i < n; i++)
+		{
+			for(int j = i + 1; j < n; j++)
+				graph.addEdge("c" + i, "c" + j, distance(n, i, j));
+		}
+		return graph;
+	}
+
+	// Cost of the circuit round polygon(n).
+	static double perimeter(int n)
+	{
+		return n * distance(n, 0, 1);
+	}
+
+	private static double distance(int n, int i, int j)
+	{
+		double a = 2 * Math.PI * i / n, b = 2 * Math.PI * j / n;
+		return Math.hypot(Math.cos(a) - Math.cos(b), Math.sin(a) - Math.sin(b));
+	}
+
+	// The circuit through the named cities in order, back to the first, as solveHamil gives it.
+	static List<Vertex<String>> circuit(Graph<String> graph, int... order)
+	{
+		List<Vertex<String>> cycle = new ArrayList<>();
+		for(int city : order)
+			cycle.add(graph.vertexSet.get("c" + city));
+		cycle.add(cycle.get(0));
+		return cycle;
+	}
+
+	// Cost of cycle if it is a Hamiltonian circuit of graph, else NaN.
+	static double circuitCost(Graph<String> graph, List<Vertex<String>> cycle)
+	{
+		int n = graph.vertexSet.size();
+		if(cycle.size() != n + 1 || cycle.get(0) != cycle.get(n))
+			return Double.NaN;
+
+		Set<Vertex<String>> seen = new HashSet<>();
+		double cost = 0;
+		for(int i = 0; i < n; i++)
+		{
+			Vertex<String> v = cycle.get(i), w = cycle.get(i + 1);
+			if(graph.vertexSet.get(v.data) != v || !seen.add(v) || !v.isAdjacent(w))
+				return Double.NaN;
+			cost += v.getCost(w);
+		}
+		return cost;
+	}
+
+	// Cost of the cheapest Hamiltonian circuit by trying every order, or
+	// infinity if there is none; for graphs of up to ten cities or so.
+	static double bruteForce(Graph<String> graph)
+	{
+		List<Vertex<String>> cities = new ArrayList<>(graph.vertexSet.values());
+		int n = cities.size();
+		if(n == 0)
+			return Double.POSITIVE_INFINITY;
+		if(n == 1)
+		{
+			Vertex<String> only = cities.get(0);
+			return only.isAdjacent(only) ? only.getCost(only) : Double.POSITIVE_INFINITY;
+		}
+
+		int[] order = new int[n];
+		for(int i = 0; i < n; i++)
+			order[i] = i;
+		double[] best = { Double.POSITIVE_INFINITY };
+		permute(cities, order, 1, 0, best);
+		return best[0];
+	}
+
+	private static void permute(List<Vertex<String>> cities, int[] order, int depth, double cost, double[] best)
+	{
+		int n = order.length;
+		Vertex<String> end = cities.get(order[depth - 1]);
+		if(depth == n)
+		{
+			Vertex<String> start = cities.get(order[0]);
+			if(end.isAdjacent(start))
+				best[0] = Math.min(best[0], cost + end.getCost(start));
+			return;
+		}
+		for(int i = depth; i < n; i++)
+		{
+			int t = order[depth];
+			order[depth] = order[i];
+			order[i] = t;
+			Vertex<String> next = cities.get(order[depth]);
+			if(end.isAdjacent(next))
+				permute(cities, order, depth + 1, cost + end.getCost(next), best);
+			order[i] = order[depth];
+			order[depth] = t;
+		}
+	}
+}
@@ -0,0 +1,53 @@
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * SolutionCache after edits that can't change the answer: a stored optimal
+ * circuit stays optimal, without another solve.
+ *
+ */
+
+public class SolutionCacheTest
+{
+	private static SolutionCache<String> solved(Graph<String> graph, SolveResult<String> result)
+	{
+		assertEquals(SolveResult.Status.OPTIMAL, result.getStatus());
+		SolutionCache<String> cache = new SolutionCache<>();
+		cache.store(graph, result);
+		return cache;
+	}
+
+	@Test
+	public void addingAnExistingPathChangesNothing()
+	{
+		Graph<String> graph = SampleGraphs.polygon(30);
+		SolutionCache<String> cache = solved(graph, new AnytimeSolver<String>().solve(graph, 5000));
+		SolveResult<String> result = cache.lookup(graph);
+		long version = graph.getVersion();
+
+		graph.addEdge("c0", "c1", 999);
+		graph.addEdge("c1", "c0", 999);
+		assertEquals(version, graph.getVersion());
+		Vertex<String> c0 = graph.getVertex(graph.idOf("c0")), c1 = graph.getVertex(graph.idOf("c1"));
+		assertEquals(SampleGraphs.perimeter(30) / 30, c0.getCost(c1), 1e-9);
+		assertSame(result, cache.lookup(graph));
+	}
+
+	@Test
+	public void removingAPathOffTheCircuitKeepsItOptimal()
+	{
+		Graph<String> graph = SampleGraphs.polygon(30);
+		SolutionCache<String> cache = solved(graph, new AnytimeSolver<String>().solve(graph, 5000));
+
+		assertTrue(graph.remove("c0", "c15"));
+		assertFalse(graph.remove("c0", "c15"));
+		SolveResult<String> result = cache.lookup(graph);
+		assertNotNull(result);
+		assertEquals(SolveResult.Status.OPTIMAL, result.getStatus());
+		assertEquals(SampleGraphs.perimeter(30), result.getCost(), 1e-9);
+	}
+}